@@ -0,0 +1,18 @@
+package com.barber.backend.config;
+
+import com.barber.backend.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Usuario autenticado, armado a partir de los claims del JWT sin consultar la BD.
+ * barbershopId es la barberia que administra (null para clientes).
+ */
+public record AuthenticatedUser(Long id, String email, Role role, Long barbershopId)
+        implements AuthenticatedPrincipal {
+
+    // authentication.getName() sigue devolviendo el email
+    @Override
+    public String getName() {
+        return email;
+    }
+}
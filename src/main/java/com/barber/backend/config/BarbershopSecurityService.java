@@ -1,33 +1,17 @@
 package com.barber.backend.config;
 
-import com.barber.backend.model.Appointment;
-import com.barber.backend.model.Professional;
+import com.barber.backend.dto.AppointmentOwner;
 import com.barber.backend.model.Role;
-import com.barber.backend.model.ServiceEntity;
-import com.barber.backend.model.User;
-import com.barber.backend.repository.AppointmentRepository;
-import com.barber.backend.repository.ProfessionalRepository;
-import com.barber.backend.repository.ServiceRepository;
-import com.barber.backend.repository.UserRepository;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 @Component("barbershopSecurity")
 public class BarbershopSecurityService {
     
-    private final UserRepository userRepository;
-    private final AppointmentRepository appointmentRepository;
-    private final ProfessionalRepository professionalRepository;
-    private final ServiceRepository serviceRepository;
+    private final ResourceOwnershipCache ownershipCache;
 
-    public BarbershopSecurityService(UserRepository userRepository,
-                                     AppointmentRepository appointmentRepository,
-                                     ProfessionalRepository professionalRepository,
-                                     ServiceRepository serviceRepository) {
-        this.userRepository = userRepository;
-        this.appointmentRepository = appointmentRepository;
-        this.professionalRepository = professionalRepository;
-        this.serviceRepository = serviceRepository;
+    public BarbershopSecurityService(ResourceOwnershipCache ownershipCache) {
+        this.ownershipCache = ownershipCache;
     }
 
     /**
@@ -38,20 +22,19 @@ public class BarbershopSecurityService {
             return false;
         }
         
-        User user = getUserFromAuth(authentication);
+        AuthenticatedUser user = getUserFromAuth(authentication);
         if (user == null) {
             return false;
         }
         
         // Si es CLIENT, no puede acceder a endpoints de administración
-        if (user.getRole() == Role.CLIENT) {
+        if (user.role() == Role.CLIENT) {
             return false;
         }
         
         // Si es ADMIN, verificar que sea de esta barbershop
-        if (user.getRole() == Role.ADMIN) {
-            return user.getManagedBarbershop() != null 
-                   && user.getManagedBarbershop().getId().equals(barbershopId);
+        if (user.role() == Role.ADMIN) {
+            return barbershopId.equals(user.barbershopId());
         }
         
         return false;
@@ -65,28 +48,26 @@ public class BarbershopSecurityService {
             return false;
         }
         
-        User user = getUserFromAuth(authentication);
+        AuthenticatedUser user = getUserFromAuth(authentication);
         if (user == null) {
             return false;
         }
         
-        Appointment appointment = appointmentRepository.findById(appointmentId)
-                .orElse(null);
+        AppointmentOwner owner = ownershipCache.getAppointmentOwner(appointmentId);
         
-        if (appointment == null) {
+        if (owner == null) {
             return false;
         }
         
         // El usuario puede modificar si:
         // 1. Es el dueño del turno (CLIENT)
-        if (user.getId().equals(appointment.getUser().getId())) {
+        if (user.id().equals(owner.userId())) {
             return true;
         }
         
         // 2. Es ADMIN de la barbershop del turno
-        if (user.getRole() == Role.ADMIN) {
-            return user.getManagedBarbershop() != null
-                   && user.getManagedBarbershop().getId().equals(appointment.getBarbershop().getId());
+        if (user.role() == Role.ADMIN) {
+            return owner.barbershopId().equals(user.barbershopId());
         }
         
         return false;
@@ -100,21 +81,15 @@ public class BarbershopSecurityService {
             return false;
         }
         
-        User user = getUserFromAuth(authentication);
-        if (user == null || user.getRole() != Role.ADMIN) {
+        AuthenticatedUser user = getUserFromAuth(authentication);
+        if (user == null || user.role() != Role.ADMIN) {
             return false;
         }
         
-        Professional professional = professionalRepository.findById(professionalId)
-                .orElse(null);
-        
-        if (professional == null) {
-            return false;
-        }
+        Long barbershopId = ownershipCache.getProfessionalBarbershopId(professionalId);
         
         // Verificar que el profesional pertenece a la barbershop del admin
-        return user.getManagedBarbershop() != null
-               && user.getManagedBarbershop().getId().equals(professional.getBarbershop().getId());
+        return barbershopId != null && barbershopId.equals(user.barbershopId());
     }
     
     /**
@@ -125,40 +100,34 @@ public class BarbershopSecurityService {
             return false;
         }
         
-        User user = getUserFromAuth(authentication);
-        if (user == null || user.getRole() != Role.ADMIN) {
+        AuthenticatedUser user = getUserFromAuth(authentication);
+        if (user == null || user.role() != Role.ADMIN) {
             return false;
         }
         
-        ServiceEntity service = serviceRepository.findById(serviceId)
-                .orElse(null);
-        
-        if (service == null) {
-            return false;
-        }
+        Long barbershopId = ownershipCache.getServiceBarbershopId(serviceId);
         
         // Verificar que el servicio pertenece a la barbershop del admin
-        return user.getManagedBarbershop() != null
-               && user.getManagedBarbershop().getId().equals(service.getBarbershop().getId());
+        return barbershopId != null && barbershopId.equals(user.barbershopId());
     }
     
     /**
      * Obtiene el barbershopId del ADMIN autenticado
      */
     public Long getAdminBarbershopId(Authentication authentication) {
-        User user = getUserFromAuth(authentication);
-        if (user == null || user.getRole() != Role.ADMIN || user.getManagedBarbershop() == null) {
+        AuthenticatedUser user = getUserFromAuth(authentication);
+        if (user == null || user.role() != Role.ADMIN) {
             return null;
         }
-        return user.getManagedBarbershop().getId();
+        return user.barbershopId();
     }
     
-    private User getUserFromAuth(Authentication authentication) {
-        if (authentication == null) {
+    // Los datos del usuario vienen en el JWT: no hace falta consultar la BD
+    private AuthenticatedUser getUserFromAuth(Authentication authentication) {
+        if (authentication == null
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             return null;
         }
-        
-        String email = authentication.getName();
-        return userRepository.findByEmail(email).orElse(null);
+        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.barber.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Caches del catálogo público (barberias, servicios y profesionales).
+ *
+ * El interceptor de cache corre por fuera del de transacciones: un acierto no abre
+ * transacción ni toma conexión, y las evicciones se aplican después del commit.
+ * Las métricas (cache.gets, cache.evictions, ...) las publica Actuator.
+ *
+ * Las peluquerías no se dan de alta por la API (se cargan directo en la BD): el
+ * listado de barberias se invalida al configurarlas y, para las altas, vence por el
+ * expireAfterWrite de app.cache.catalog-spec.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String BARBERSHOPS = "barbershops";
+    public static final String BARBERSHOP_BY_SLUG = "barbershopBySlug";
+    public static final String SERVICES_BY_BARBERSHOP = "servicesByBarbershop";
+    public static final String PROFESSIONALS_BY_BARBERSHOP = "professionalsByBarbershop";
+    public static final String BOOKING_CONTEXT = "bookingContext";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.catalog-spec}") String catalogSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                BARBERSHOPS, BARBERSHOP_BY_SLUG, SERVICES_BY_BARBERSHOP, PROFESSIONALS_BY_BARBERSHOP,
+                BOOKING_CONTEXT);
+        cacheManager.setCacheSpecification(catalogSpec);
+        return cacheManager;
+    }
+}
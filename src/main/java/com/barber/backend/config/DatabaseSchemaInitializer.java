@@ -0,0 +1,97 @@
+package com.barber.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aplica al arrancar los cambios de esquema que Hibernate (ddl-auto=update) no sabe
+ * hacer. Todas las sentencias son idempotentes.
+ *
+ * Corre al crear el bean, después de que Hibernate actualiza el esquema y antes de que
+ * el servidor web empiece a aceptar requests. Si falla un cambio obligatorio (como la
+ * restricción que impide turnos superpuestos) la aplicación no arranca.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class DatabaseSchemaInitializer {
+
+    public static final String APPOINTMENT_OVERLAP_CONSTRAINT = "appointments_no_overlap";
+
+    // Un profesional no puede tener dos turnos activos superpuestos (los cancelados no cuentan)
+    private static final String APPOINTMENT_OVERLAP_DDL = """
+        DO $$
+        BEGIN
+            IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = '%s') THEN
+                ALTER TABLE appointments
+                    ADD CONSTRAINT %s
+                    EXCLUDE USING gist (
+                        professional_id WITH =,
+                        tsrange(start_time, end_time, '[)') WITH &&
+                    )
+                    WHERE (status <> 'CANCELLED');
+            END IF;
+        END
+        $$
+        """.formatted(APPOINTMENT_OVERLAP_CONSTRAINT, APPOINTMENT_OVERLAP_CONSTRAINT);
+
+    // Los turnos pasaron de IDENTITY a secuencia: la secuencia tiene que arrancar después
+    // del último id existente (y nunca retroceder si ya va más adelante)
+    private static final String APPOINTMENT_SEQUENCE_SYNC = """
+        SELECT setval('appointments_seq', GREATEST(
+            (SELECT COALESCE(MAX(id), 0) FROM appointments) + 50,
+            (SELECT last_value FROM appointments_seq)))
+        """;
+
+    private static final String APPOINTMENT_SEQUENCE_CHECK = """
+        SELECT (SELECT last_value FROM appointments_seq)
+            >= (SELECT COALESCE(MAX(id), 0) FROM appointments)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseSchemaInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void apply() {
+        // Sin la restricción de exclusión dos reservas concurrentes podrían tomar el mismo horario
+        executeRequired("CREATE EXTENSION IF NOT EXISTS btree_gist");
+        executeRequired(APPOINTMENT_OVERLAP_DDL);
+        // El id de MP se completa después de reservar el pago (ver PaymentService)
+        execute("ALTER TABLE payments ALTER COLUMN mercado_pago_id DROP NOT NULL");
+        // Sin la sincronización la secuencia entregaría ids ya usados (duplicate key al insertar)
+        executeRequired(APPOINTMENT_SEQUENCE_SYNC);
+        verifyAppointmentSequence();
+        // Los tokens de verificación ahora son firmados y no se guardan (ver VerificationTokenUtil)
+        execute("DROP TABLE IF EXISTS verification_tokens");
+    }
+
+    private void verifyAppointmentSequence() {
+        Boolean ahead = jdbcTemplate.queryForObject(APPOINTMENT_SEQUENCE_CHECK, Boolean.class);
+        if (!Boolean.TRUE.equals(ahead)) {
+            throw new IllegalStateException("La secuencia appointments_seq está detrás del último id de turnos");
+        }
+    }
+
+    private void executeRequired(String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException(
+                    "No se pudo aplicar un cambio de esquema obligatorio: " + e.getMostSpecificCause().getMessage(), e);
+        }
+    }
+
+    private void execute(String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            // Cambio no esencial: no impide el arranque
+            System.err.println("No se pudo aplicar el cambio de esquema: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+}
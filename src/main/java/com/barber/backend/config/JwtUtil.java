@@ -1,44 +1,129 @@
 package com.barber.backend.config;
 
+import com.barber.backend.model.Role;
+import com.barber.backend.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
+    // Claims propios: id de usuario, rol y barberia administrada
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String BARBERSHOP_ID_CLAIM = "bid";
+
     @Value("${app.jwt.secret}")
     private String secret;
 
     @Value("${app.jwt.expiration}")
     private long expiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${app.jwt.cache-size:10000}")
+    private long cacheSize;
+
+    // Clave y parser se construyen una sola vez (son inmutables y thread-safe)
+    private Key signingKey;
+    private JwtParser parser;
+
+    // Claims ya verificados por token; cada entrada vence junto con el token (exp)
+    private Cache<String, Claims> claimsCache;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        Date exp = claims.getExpiration();
+                        long millis = exp != null ? exp.getTime() - System.currentTimeMillis() : expiration;
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
-    public String generateToken(String email) {
+    public String generateToken(User user) {
+        // getId() sobre el proxy lazy no dispara una consulta
+        Long barbershopId = user.getManagedBarbershop() != null
+                ? user.getManagedBarbershop().getId()
+                : null;
+
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
+                .claim(BARBERSHOP_ID_CLAIM, barbershopId)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Arma el usuario autenticado desde el token. Devuelve null para tokens emitidos
+     * antes de incluir los claims de usuario (el cliente debe volver a iniciar sesión).
+     * Los datos valen hasta que el token expira: un cambio de rol o de barberia se
+     * refleja en el próximo login.
+     */
+    public AuthenticatedUser getAuthenticatedUser(String token) {
+        Claims claims = getClaims(token);
+
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+
+        return new AuthenticatedUser(
+                userId,
+                claims.getSubject(),
+                Role.valueOf(role),
+                claims.get(BARBERSHOP_ID_CLAIM, Long.class));
+    }
 
-        return claims.getSubject();
+    /**
+     * Devuelve los claims de un token válido. Solo la primera vez se verifica la firma
+     * y se decodifica; las siguientes requests de la misma sesión salen del cache.
+     */
+    public Claims getClaims(String token) {
+        Claims claims = claimsCache.getIfPresent(token);
+        if (claims == null) {
+            // Lanza excepción si la firma no es válida o el token expiró (no se cachea)
+            claims = parser.parseClaimsJws(token).getBody();
+            claimsCache.put(token, claims);
+        }
+        return claims;
     }
 }
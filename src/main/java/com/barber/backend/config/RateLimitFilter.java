@@ -0,0 +1,285 @@
+package com.barber.backend.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limita las requests por IP y por cuenta en las rutas configuradas (login, registro,
+ * reenvío de verificación, reservas), antes de autenticar el JWT.
+ *
+ * Cada bucket es un solo AtomicLong con el algoritmo GCRA (equivalente a un token
+ * bucket): guarda el instante teórico en que se vacía y se actualiza con CAS, sin
+ * locks. Los buckets viven en un cache acotado que descarta los que quedan sin uso.
+ * Las rutas sin límite solo pagan una búsqueda en un HashMap.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Bodies más grandes no se leen para buscar el email (solo queda el límite por IP)
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final Map<String, RouteLimits> routes = new HashMap<>();
+    private final Cache<String, AtomicLong> buckets;
+    private final boolean enabled;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           JwtUtil jwtUtil,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+
+        Duration idleTimeout = properties.getIdleTimeout();
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            String method = route.getMethod().toUpperCase(Locale.ROOT);
+            String id = method + " " + route.getPath();
+            routes.put(id, new RouteLimits(
+                    id,
+                    Rate.of(route.getPerIp()),
+                    Rate.of(route.getPerAccount()),
+                    rejectedCounter(meterRegistry, id, "ip"),
+                    rejectedCounter(meterRegistry, id, "account")));
+
+            // Descartar un bucket antes de que se llene de nuevo le regalaría tokens al cliente
+            for (RateLimitProperties.Limit limit : new RateLimitProperties.Limit[] {
+                    route.getPerIp(), route.getPerAccount()}) {
+                if (limit != null && limit.getPeriod().compareTo(idleTimeout) > 0) {
+                    idleTimeout = limit.getPeriod();
+                }
+            }
+        }
+
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RouteLimits limits = enabled ? routes.get(request.getMethod() + " " + pathOf(request)) : null;
+        if (limits == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if (limits.perIp() != null) {
+            long wait = acquire(limits.id() + "|ip|" + request.getRemoteAddr(), limits.perIp(), now);
+            if (wait > 0) {
+                limits.ipRejected().increment();
+                reject(response, wait);
+                return;
+            }
+        }
+
+        if (limits.perAccount() != null) {
+            HttpServletRequest cached = null;
+            String account = accountFromToken(request);
+            if (account == null) {
+                // Rutas anónimas (login, registro): la cuenta es el email del body, que hay
+                // que leer y volver a ofrecer al controller
+                cached = CachedBodyRequest.wrap(request);
+                account = accountFromBody(cached);
+            }
+
+            if (account != null) {
+                long wait = acquire(limits.id() + "|account|" + account, limits.perAccount(), now);
+                if (wait > 0) {
+                    limits.accountRejected().increment();
+                    reject(response, wait);
+                    return;
+                }
+            }
+            if (cached != null) {
+                request = cached;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Toma un lugar del bucket. Devuelve 0 si se admitió la request, o los nanosegundos
+     * que faltan para que haya lugar.
+     */
+    private long acquire(String key, Rate rate, long now) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long emptyAt = bucket.get();
+            long next = Math.max(emptyAt, now) + rate.interval();
+            long wait = next - now - rate.period();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(emptyAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private String accountFromToken(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            // Los claims quedan en el cache de JwtUtil: el filtro de JWT no vuelve a verificar la firma
+            AuthenticatedUser user = jwtUtil.getAuthenticatedUser(authHeader.substring(7));
+            return user != null ? "user:" + user.id() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private String accountFromBody(HttpServletRequest request) {
+        if (!(request instanceof CachedBodyRequest cached) || cached.body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(cached.body).get("email");
+            return email != null && email.isTextual()
+                    ? "email:" + email.asText().trim().toLowerCase(Locale.ROOT)
+                    : null;
+        } catch (IOException e) {
+            // Body inválido: lo rechazará el controller
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(
+                "{\"error\":\"Demasiadas solicitudes, intentá de nuevo en " + seconds + " segundos\"}");
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return contextPath.isEmpty() ? uri : uri.substring(contextPath.length());
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String route, String scope) {
+        return meterRegistry.counter("http.rate-limit.rejected", "route", route, "scope", scope);
+    }
+
+    private record RouteLimits(String id, Rate perIp, Rate perAccount,
+                               Counter ipRejected, Counter accountRejected) {}
+
+    // interval: tiempo que "cuesta" cada request; period: tolerancia total (la ráfaga)
+    private record Rate(long interval, long period) {
+
+        static Rate of(RateLimitProperties.Limit limit) {
+            if (limit == null) {
+                return null;
+            }
+            if (limit.getCapacity() <= 0 || limit.getPeriod() == null || limit.getPeriod().isZero()) {
+                throw new IllegalArgumentException("Límite inválido: capacity y period deben ser positivos");
+            }
+            long period = limit.getPeriod().toNanos();
+            return new Rate(period / limit.getCapacity(), period);
+        }
+    }
+
+    /**
+     * Request con el body ya leído en memoria, para poder leerlo acá y otra vez en el controller
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        static HttpServletRequest wrap(HttpServletRequest request) throws IOException {
+            // Sin Content-Length o demasiado grande: no se lee (queda solo el límite por IP)
+            int length = request.getContentLength();
+            if (length < 0 || length > MAX_BODY_BYTES
+                    || request.getContentType() == null
+                    || !request.getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE)) {
+                return request;
+            }
+            return new CachedBodyRequest(request, request.getInputStream().readNBytes(length));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
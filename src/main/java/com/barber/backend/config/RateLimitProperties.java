@@ -0,0 +1,70 @@
+package com.barber.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Límites de requests por ruta (app.rate-limit.*). Cada ruta puede limitar por IP,
+ * por cuenta (usuario del JWT o email del body) o ambas.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Máximo de buckets en memoria; los que superan el límite se descartan
+    private long maxKeys = 100_000;
+
+    // Un bucket sin uso por este tiempo se descarta (ya estaría lleno de nuevo)
+    private Duration idleTimeout = Duration.ofMinutes(15);
+
+    private List<Route> routes = new ArrayList<>();
+
+    public static class Route {
+
+        private String method;
+        private String path;       // ruta exacta, sin comodines
+        private Limit perIp;
+        private Limit perAccount;
+
+        public String getMethod() { return method; }
+        public void setMethod(String method) { this.method = method; }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public Limit getPerIp() { return perIp; }
+        public void setPerIp(Limit perIp) { this.perIp = perIp; }
+
+        public Limit getPerAccount() { return perAccount; }
+        public void setPerAccount(Limit perAccount) { this.perAccount = perAccount; }
+    }
+
+    // capacity requests por period, con ráfagas de hasta capacity
+    public static class Limit {
+
+        private int capacity;
+        private Duration period;
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public Duration getPeriod() { return period; }
+        public void setPeriod(Duration period) { this.period = period; }
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMaxKeys() { return maxKeys; }
+    public void setMaxKeys(long maxKeys) { this.maxKeys = maxKeys; }
+
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    public List<Route> getRoutes() { return routes; }
+    public void setRoutes(List<Route> routes) { this.routes = routes; }
+}
@@ -0,0 +1,69 @@
+package com.barber.backend.config;
+
+import com.barber.backend.dto.AppointmentOwner;
+import com.barber.backend.repository.AppointmentRepository;
+import com.barber.backend.repository.ProfessionalRepository;
+import com.barber.backend.repository.ServiceRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache de "a qué barberia pertenece" cada turno, profesional y servicio.
+ *
+ * La pertenencia no cambia después de crear el recurso, así que una vez leída
+ * (con una consulta de ids, sin cargar la entidad) se reutiliza en cada
+ * chequeo de @PreAuthorize. Los recursos que no existen no se cachean.
+ */
+@Component
+public class ResourceOwnershipCache {
+
+    private final AppointmentRepository appointmentRepository;
+    private final ProfessionalRepository professionalRepository;
+    private final ServiceRepository serviceRepository;
+
+    private final Cache<Long, AppointmentOwner> appointments;
+    private final Cache<Long, Long> professionals;
+    private final Cache<Long, Long> services;
+
+    public ResourceOwnershipCache(AppointmentRepository appointmentRepository,
+                                  ProfessionalRepository professionalRepository,
+                                  ServiceRepository serviceRepository,
+                                  @Value("${app.security.ownership-cache-size:50000}") long maximumSize) {
+        this.appointmentRepository = appointmentRepository;
+        this.professionalRepository = professionalRepository;
+        this.serviceRepository = serviceRepository;
+
+        this.appointments = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.professionals = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        this.services = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public AppointmentOwner getAppointmentOwner(Long appointmentId) {
+        return appointments.get(appointmentId,
+                id -> appointmentRepository.findOwnerById(id).orElse(null));
+    }
+
+    public Long getProfessionalBarbershopId(Long professionalId) {
+        return professionals.get(professionalId,
+                id -> professionalRepository.findBarbershopIdById(id).orElse(null));
+    }
+
+    public Long getServiceBarbershopId(Long serviceId) {
+        return services.get(serviceId,
+                id -> serviceRepository.findBarbershopIdById(id).orElse(null));
+    }
+
+    public void evictAppointment(Long appointmentId) {
+        appointments.invalidate(appointmentId);
+    }
+
+    public void evictProfessional(Long professionalId) {
+        professionals.invalidate(professionalId);
+    }
+
+    public void evictService(Long serviceId) {
+        services.invalidate(serviceId);
+    }
+}
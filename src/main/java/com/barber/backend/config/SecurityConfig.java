@@ -1,15 +1,22 @@
 package com.barber.backend.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableMethodSecurity // ← IMPORTANTE: Habilita @PreAuthorize
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
@@ -24,7 +31,21 @@ public class SecurityConfig {
     }
 
     @Bean
-public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public RateLimitFilter rateLimitFilter(RateLimitProperties properties,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) {
+        return new RateLimitFilter(properties, jwtUtil, objectMapper, meterRegistry);
+    }
+
+    // El costo se puede subir sin migrar: los hashes viejos se rehacen en el próximo login
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    @Bean
+public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                               RateLimitFilter rateLimitFilter) throws Exception {
 
     http
         .csrf(csrf -> csrf.disable())
@@ -40,11 +61,14 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
         // GET públicos
         .requestMatchers("GET", "/professionals").permitAll()
         .requestMatchers("GET", "/services").permitAll()
+        .requestMatchers("GET", "/appointments/availability").permitAll()
     
         // 🔒 Todo lo demás requiere autenticación
         .anyRequest().authenticated()
     )
         .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+        // Se corta el abuso antes de verificar tokens o leer bodies
+        .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
         .formLogin(form -> form.disable())
         .httpBasic(basic -> basic.disable());
 
@@ -0,0 +1,101 @@
+package com.barber.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Tokens de verificación de email sin estado: "userId.nonce.vencimiento.firma", con
+ * firma HMAC-SHA256. No se guardan en la BD; el nonce del usuario se incrementa al
+ * verificar o reenviar, así que un token solo sirve una vez y el último reemplaza
+ * a los anteriores.
+ *
+ * Por defecto el secreto es el mismo del JWT, así que la clave de firma se deriva de él
+ * (HMAC del secreto con una etiqueta propia): una firma de un tipo de token nunca sirve
+ * para el otro.
+ */
+@Component
+public class VerificationTokenUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String KEY_PURPOSE = "email-verification";
+
+    public record VerificationClaims(Long userId, int nonce, Instant expiresAt) {
+        public boolean isExpired() {
+            return Instant.now().isAfter(expiresAt);
+        }
+    }
+
+    private final SecretKeySpec key;
+    private final Duration validity;
+
+    public VerificationTokenUtil(@Value("${app.verification.secret:${app.jwt.secret}}") String secret,
+                                 @Value("${app.verification.token-validity-hours:24}") long validityHours) {
+        this.key = new SecretKeySpec(
+                hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM), KEY_PURPOSE), ALGORITHM);
+        this.validity = Duration.ofHours(validityHours);
+    }
+
+    public String generateToken(Long userId, int nonce) {
+        String payload = userId + "." + nonce + "." + Instant.now().plus(validity).getEpochSecond();
+        return payload + "." + sign(payload);
+    }
+
+    /**
+     * Devuelve los datos del token si la firma es válida, o null si fue alterado o
+     * no tiene el formato esperado. El vencimiento lo revisa el llamador.
+     */
+    public VerificationClaims parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < 0) {
+            return null;
+        }
+
+        String payload = token.substring(0, signatureStart);
+        byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        // Comparación en tiempo constante para no filtrar la firma byte a byte
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+
+        String[] parts = payload.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new VerificationClaims(
+                    Long.parseLong(parts[0]),
+                    Integer.parseInt(parts[1]),
+                    Instant.ofEpochSecond(Long.parseLong(parts[2])));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String sign(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(key, payload));
+    }
+
+    private static byte[] hmac(SecretKeySpec key, String data) {
+        try {
+            // Mac no es thread-safe: una instancia por llamada (la clave ya está armada)
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token de verificación", e);
+        }
+    }
+}
@@ -1,14 +1,27 @@
 package com.barber.backend.controller;
 
+import com.barber.backend.config.AuthenticatedUser;
 import com.barber.backend.dto.*;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.service.AppointmentExportService;
 import com.barber.backend.service.AppointmentService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/appointments")
@@ -16,9 +29,16 @@ import java.util.List;
 public class AppointmentController {
 
     private final AppointmentService appointmentService;
+    private final AppointmentExportService appointmentExportService;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    // Las exportaciones de historiales grandes tardan más que el timeout asíncrono por defecto
+    @Value("${app.appointments.export.timeout-minutes:60}")
+    private long exportTimeoutMinutes;
+
+    public AppointmentController(AppointmentService appointmentService,
+                                 AppointmentExportService appointmentExportService) {
         this.appointmentService = appointmentService;
+        this.appointmentExportService = appointmentExportService;
     }
 
     // ✅ Crear turno (requiere autenticación)
@@ -32,12 +52,76 @@ public class AppointmentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // ✅ Crear una serie de turnos recurrentes (requiere autenticación)
+    // Devuelve los turnos creados y las fechas que no se pudieron reservar
+    // (409 con las fechas rechazadas si no se pudo reservar ninguna)
+    @PostMapping("/recurring")
+    public ResponseEntity<RecurringAppointmentResponse> createRecurring(
+            @RequestBody RecurringAppointmentRequest request,
+            Authentication authentication) {
+        
+        Long userId = getUserIdFromAuth(authentication);
+        RecurringAppointmentResponse response = appointmentService.createRecurringAppointments(request, userId);
+        HttpStatus status = response.getCreated().isEmpty() ? HttpStatus.CONFLICT : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    // ✅ Horarios disponibles de un profesional para un servicio (público)
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> getAvailability(
+            @RequestParam Long barbershopId,
+            @RequestParam Long professionalId,
+            @RequestParam Long serviceId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(appointmentService.getAvailability(
+                barbershopId, professionalId, serviceId, date));
+    }
+
     // 🔒 Obtener turnos por barbershop (solo ADMIN de esa barbershop)
     @PreAuthorize("@barbershopSecurity.canAccessBarbershop(authentication, #barbershopId)")
+    // Filtros opcionales: from/to (fechas inclusive), status (repetible) y cursor de la página anterior
     @GetMapping("/barbershop/{barbershopId}")
-    public ResponseEntity<List<AppointmentResponse>> getByBarbershop(
-            @PathVariable Long barbershopId) {
-        return ResponseEntity.ok(appointmentService.getAppointmentsByBarbershop(barbershopId));
+    public ResponseEntity<AppointmentPageResponse> getByBarbershop(
+            @PathVariable Long barbershopId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsByBarbershop(
+                barbershopId, from, to, status, cursor, limit));
+    }
+
+    // 🔒 Exportar el historial completo de turnos en CSV o NDJSON (solo ADMIN de esa barbershop)
+    @PreAuthorize("@barbershopSecurity.canAccessBarbershop(authentication, #barbershopId)")
+    @GetMapping("/barbershop/{barbershopId}/export")
+    public WebAsyncTask<Void> export(
+            @PathVariable Long barbershopId,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) {
+
+        StreamingResponseBody body;
+        MediaType contentType;
+
+        if ("csv".equalsIgnoreCase(format)) {
+            body = out -> appointmentExportService.exportCsv(barbershopId, out);
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            body = out -> appointmentExportService.exportNdjson(barbershopId, out);
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else {
+            throw new RuntimeException("Formato de exportación inválido (csv o ndjson)");
+        }
+
+        String filename = "turnos-" + barbershopId + "." + format.toLowerCase();
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        // Se escribe en el executor de MVC con un timeout propio, solo para este endpoint
+        return new WebAsyncTask<>(TimeUnit.MINUTES.toMillis(exportTimeoutMinutes), () -> {
+            body.writeTo(response.getOutputStream());
+            return null;
+        });
     }
 
     // ✅ Obtener MIS turnos (cliente autenticado)
@@ -77,10 +161,7 @@ public class AppointmentController {
     }
     
     private Long getUserIdFromAuth(Authentication authentication) {
-        // Extraer userId del JWT
-        // Por ahora temporal:
-        String email = authentication.getName();
-        // TODO: Implementar método que obtenga el ID desde el UserDetails
-        return 1L; // Placeholder
+        // El id viene en el JWT (ver JwtAuthenticationFilter)
+        return ((AuthenticatedUser) authentication.getPrincipal()).id();
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.barber.backend.controller;
 import com.barber.backend.dto.BarbershopConfigRequest;
 import com.barber.backend.dto.BarbershopDTO;
 import com.barber.backend.dto.BarbershopListDTO;
+import com.barber.backend.dto.BookingContextResponse;
 import com.barber.backend.service.BarbershopService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -42,11 +43,29 @@ public class BarbershopController {
 
     /**
      * GET /api/barbershops/slug/{slug}
-     * Obtiene peluquería por slug (para URLs amigables)
+     * Obtiene peluquería por slug (para URLs amigables).
+     * Responde 304 si el If-None-Match coincide con la versión actual.
      */
     @GetMapping("/slug/{slug}")
     public ResponseEntity<BarbershopDTO> getBarbershopBySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(barbershopService.getBarbershopBySlug(slug));
+        BarbershopDTO barbershop = barbershopService.getBarbershopBySlug(slug);
+        return ResponseEntity.ok()
+                .eTag(CatalogETags.of(barbershop.getId(), barbershop.getVersion()))
+                .cacheControl(CatalogETags.CACHE_CONTROL)
+                .body(barbershop);
+    }
+
+    /**
+     * GET /api/barbershops/slug/{slug}/booking-context
+     * Peluquería, servicios activos y profesionales activos en una sola llamada
+     */
+    @GetMapping("/slug/{slug}/booking-context")
+    public ResponseEntity<BookingContextResponse> getBookingContext(@PathVariable String slug) {
+        BookingContextResponse context = barbershopService.getBookingContext(slug);
+        return ResponseEntity.ok()
+                .eTag(CatalogETags.ofBookingContext(context))
+                .cacheControl(CatalogETags.CACHE_CONTROL)
+                .body(context);
     }
 
     /**
@@ -0,0 +1,67 @@
+package com.barber.backend.controller;
+
+import com.barber.backend.dto.BookingContextResponse;
+import com.barber.backend.dto.ProfessionalResponse;
+import com.barber.backend.dto.ServiceResponse;
+import org.springframework.http.CacheControl;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * ETags fuertes para los endpoints públicos del catálogo, calculados a partir de los
+ * ids y columnas de versión. Si el cliente manda If-None-Match con el mismo valor,
+ * Spring responde 304 sin serializar el cuerpo.
+ */
+final class CatalogETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // El cliente puede guardar la respuesta pero debe revalidarla (barato, gracias al ETag)
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private CatalogETags() {
+    }
+
+    static String of(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * ETag de una lista: cambia si se agrega, quita o modifica cualquier elemento
+     */
+    static <T> String ofList(List<T> items, ToLongFunction<T> id, ToLongFunction<T> version) {
+        long hash = mixAll(FNV_OFFSET, items, id, version);
+        return "\"" + items.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * ETag del contexto de reservas: cambia con la peluquería o con cualquiera de sus listas
+     */
+    static String ofBookingContext(BookingContextResponse context) {
+        long hash = mix(FNV_OFFSET, context.getBarbershop().getId());
+        hash = mix(hash, context.getBarbershop().getVersion());
+        hash = mixAll(hash, context.getServices(), ServiceResponse::getId, ServiceResponse::getVersion);
+        hash = mixAll(hash, context.getProfessionals(), ProfessionalResponse::getId, ProfessionalResponse::getVersion);
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    // FNV-1a de 64 bits sobre la cantidad y los pares (id, versión)
+    private static <T> long mixAll(long hash, List<T> items, ToLongFunction<T> id, ToLongFunction<T> version) {
+        hash = mix(hash, items.size());
+        for (T item : items) {
+            hash = mix(hash, id.applyAsLong(item));
+            hash = mix(hash, version.applyAsLong(item));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
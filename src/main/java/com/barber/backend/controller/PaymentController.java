@@ -1,8 +1,10 @@
 package com.barber.backend.controller;
 
+import com.barber.backend.config.AuthenticatedUser;
 import com.barber.backend.dto.PaymentRequest;
 import com.barber.backend.dto.PaymentResponse;
 import com.barber.backend.service.PaymentService;
+import com.barber.backend.service.PaymentWebhookService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,9 +18,12 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentWebhookService webhookService;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService,
+                             PaymentWebhookService webhookService) {
         this.paymentService = paymentService;
+        this.webhookService = webhookService;
     }
 
     // ✅ Crear preferencia de pago
@@ -48,7 +53,9 @@ public class PaymentController {
 
     // 🔔 Webhook de Mercado Pago (público)
     @PostMapping("/webhook")
-    public ResponseEntity<Void> handleWebhook(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<Void> handleWebhook(
+            @RequestBody Map<String, Object> payload,
+            @RequestParam(required = false) Long barbershopId) {
         
         try {
             String type = (String) payload.get("type");
@@ -57,9 +64,14 @@ public class PaymentController {
                 Map<String, Object> data = (Map<String, Object>) payload.get("data");
                 Long paymentId = Long.valueOf(data.get("id").toString());
                 
-                // Procesar notificación en segundo plano
-                // En producción, usar un queue (RabbitMQ, SQS, etc.)
-                paymentService.processWebhookNotification(paymentId, "approved");
+                // Mercado Pago repite el mismo id de notificación en cada reintento
+                Object notificationId = payload.get("id");
+                String key = notificationId != null
+                        ? notificationId.toString()
+                        : type + ":" + paymentId + ":" + payload.get("action");
+                
+                // Solo se registra: el estado real se consulta en segundo plano
+                webhookService.accept(key, type, paymentId, barbershopId);
             }
             
             return ResponseEntity.ok().build();
@@ -71,7 +83,7 @@ public class PaymentController {
     }
     
     private Long getUserIdFromAuth(Authentication authentication) {
-        // TODO: Implementar extracción real del JWT
-        return 1L; // Placeholder
+        // El id viene en el JWT (ver JwtAuthenticationFilter)
+        return ((AuthenticatedUser) authentication.getPrincipal()).id();
     }
 }
\ No newline at end of file
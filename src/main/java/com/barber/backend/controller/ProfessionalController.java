@@ -25,7 +25,12 @@ public class ProfessionalController {
     @GetMapping
     public ResponseEntity<List<ProfessionalResponse>> getByBarbershop(
             @RequestParam Long barbershopId) {
-        return ResponseEntity.ok(professionalService.getProfessionalsByBarbershop(barbershopId));
+        List<ProfessionalResponse> items = professionalService.getProfessionalsByBarbershop(barbershopId);
+        // 304 si el If-None-Match coincide: no se serializa la lista
+        return ResponseEntity.ok()
+                .eTag(CatalogETags.ofList(items, ProfessionalResponse::getId, ProfessionalResponse::getVersion))
+                .cacheControl(CatalogETags.CACHE_CONTROL)
+                .body(items);
     }
 
     // 🔒 Obtener TODOS los profesionales (incluyendo inactivos) - Solo ADMIN
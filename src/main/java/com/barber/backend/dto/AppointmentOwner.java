@@ -0,0 +1,5 @@
+package com.barber.backend.dto;
+
+// Barberia y cliente dueños de un turno (para chequeos de autorización)
+public record AppointmentOwner(Long barbershopId, Long userId) {
+}
@@ -0,0 +1,18 @@
+package com.barber.backend.dto;
+
+import java.util.List;
+
+public class AppointmentPageResponse {
+
+    private List<AppointmentResponse> items;
+    private String nextCursor; // null si no hay más resultados
+
+    public AppointmentPageResponse(List<AppointmentResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<AppointmentResponse> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -1,6 +1,9 @@
 package com.barber.backend.dto;
 
+import com.barber.backend.model.AppointmentStatus;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 public class AppointmentResponse {
@@ -39,6 +42,17 @@ public class AppointmentResponse {
         this.serviceDuration = serviceDuration;
         this.barbershopName = barbershopName;
         this.barbershopId = barbershopId;
+        this.notes = notes;
+    }
+
+    // Constructor para proyecciones JPQL (SELECT new ...) sin cargar las entidades
+    public AppointmentResponse(Long id, LocalDateTime start, LocalDateTime end,
+                               AppointmentStatus status, String clientName, String professionalName,
+                               String serviceName, Double servicePrice, Integer serviceDuration,
+                               String barbershopName, Long barbershopId, String notes) {
+        this(id, start.toLocalDate(), start.toLocalTime(), end.toLocalTime(), status.name(),
+                clientName, professionalName, serviceName, servicePrice, serviceDuration,
+                barbershopName, barbershopId, notes);
     }
 
     // Getters
@@ -0,0 +1,7 @@
+package com.barber.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Horario ocupado por un turno: solo lo necesario para el índice en memoria
+public record AppointmentSlot(Long appointmentId, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,30 @@
+package com.barber.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class AvailabilityResponse {
+
+    private LocalDate date;
+    private Long professionalId;
+    private Long serviceId;
+    private Integer serviceDuration;  // (en minutos)
+    private List<LocalTime> availableTimes;
+
+    public AvailabilityResponse(LocalDate date, Long professionalId, Long serviceId,
+                                Integer serviceDuration, List<LocalTime> availableTimes) {
+        this.date = date;
+        this.professionalId = professionalId;
+        this.serviceId = serviceId;
+        this.serviceDuration = serviceDuration;
+        this.availableTimes = availableTimes;
+    }
+
+    // Getters
+    public LocalDate getDate() { return date; }
+    public Long getProfessionalId() { return professionalId; }
+    public Long getServiceId() { return serviceId; }
+    public Integer getServiceDuration() { return serviceDuration; }
+    public List<LocalTime> getAvailableTimes() { return availableTimes; }
+}
@@ -11,6 +11,7 @@ public class BarbershopDTO {
     private String link;
     private Boolean paymentEnabled; // NUEVO
     private String mercadoPagoPublicKey; // NUEVO
+    private long version;
 
     // Getters & Setters
     public Long getId() { return id; }
@@ -41,4 +42,7 @@ public class BarbershopDTO {
     public void setMercadoPagoPublicKey(String mercadoPagoPublicKey) { 
         this.mercadoPagoPublicKey = mercadoPagoPublicKey; 
     }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.barber.backend.dto;
+
+import java.util.List;
+
+// Todo lo que necesita la página de reservas de una peluquería, en una sola respuesta
+public class BookingContextResponse {
+
+    private BarbershopDTO barbershop;
+    private List<ServiceResponse> services;           // solo activos
+    private List<ProfessionalResponse> professionals; // solo activos
+
+    public BookingContextResponse(BarbershopDTO barbershop, List<ServiceResponse> services,
+                                  List<ProfessionalResponse> professionals) {
+        this.barbershop = barbershop;
+        this.services = services;
+        this.professionals = professionals;
+    }
+
+    // Getters
+    public BarbershopDTO getBarbershop() { return barbershop; }
+    public List<ServiceResponse> getServices() { return services; }
+    public List<ProfessionalResponse> getProfessionals() { return professionals; }
+}
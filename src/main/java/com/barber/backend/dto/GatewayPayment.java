@@ -0,0 +1,5 @@
+package com.barber.backend.dto;
+
+// Estado de un pago según la pasarela; externalReference es el id del turno
+public record GatewayPayment(Long id, String status, String externalReference, String paymentMethod) {
+}
@@ -0,0 +1,5 @@
+package com.barber.backend.dto;
+
+// Preferencia de pago creada en la pasarela: id y URL de checkout
+public record GatewayPreference(String id, String initPoint) {
+}
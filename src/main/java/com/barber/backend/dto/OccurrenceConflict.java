@@ -0,0 +1,8 @@
+package com.barber.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Fecha de una serie que no se pudo reservar y el motivo
+public record OccurrenceConflict(LocalDate date, LocalTime time, String reason) {
+}
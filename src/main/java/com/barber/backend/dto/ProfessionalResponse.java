@@ -9,9 +9,11 @@ public class ProfessionalResponse {
     private Boolean active; // NUEVO
     private Long barbershopId; // NUEVO
     private String barbershopName; // NUEVO
+    private long version;
 
     public ProfessionalResponse(Long id, String name, String specialty, String phone, 
-                               Boolean active, Long barbershopId, String barbershopName) {
+                               Boolean active, Long barbershopId, String barbershopName,
+                               long version) {
         this.id = id;
         this.name = name;
         this.specialty = specialty;
@@ -19,6 +21,7 @@ public class ProfessionalResponse {
         this.active = active;
         this.barbershopId = barbershopId;
         this.barbershopName = barbershopName;
+        this.version = version;
     }
 
     // Getters
@@ -29,4 +32,5 @@ public class ProfessionalResponse {
     public Boolean getActive() { return active; }
     public Long getBarbershopId() { return barbershopId; }
     public String getBarbershopName() { return barbershopName; }
+    public long getVersion() { return version; }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.barber.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Serie de turnos: mismo profesional, servicio y hora cada N semanas entre dos fechas
+public class RecurringAppointmentRequest {
+
+    private Long barbershopId;
+    private Long professionalId;
+    private Long serviceId;
+    private LocalDate startDate;   // primer turno
+    private LocalDate endDate;     // último día posible (inclusive)
+    private LocalTime time;
+    private Integer intervalWeeks; // 1 = todas las semanas, 2 = cada dos semanas...
+    private String notes;
+
+    // Getters & Setters
+    public Long getBarbershopId() { return barbershopId; }
+    public void setBarbershopId(Long barbershopId) { this.barbershopId = barbershopId; }
+
+    public Long getProfessionalId() { return professionalId; }
+    public void setProfessionalId(Long professionalId) { this.professionalId = professionalId; }
+
+    public Long getServiceId() { return serviceId; }
+    public void setServiceId(Long serviceId) { this.serviceId = serviceId; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public LocalTime getTime() { return time; }
+    public void setTime(LocalTime time) { this.time = time; }
+
+    public Integer getIntervalWeeks() { return intervalWeeks; }
+    public void setIntervalWeeks(Integer intervalWeeks) { this.intervalWeeks = intervalWeeks; }
+
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+}
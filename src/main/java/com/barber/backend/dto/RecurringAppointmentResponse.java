@@ -0,0 +1,18 @@
+package com.barber.backend.dto;
+
+import java.util.List;
+
+public class RecurringAppointmentResponse {
+
+    private List<AppointmentResponse> created;
+    private List<OccurrenceConflict> conflicts; // fechas que no se reservaron
+
+    public RecurringAppointmentResponse(List<AppointmentResponse> created, List<OccurrenceConflict> conflicts) {
+        this.created = created;
+        this.conflicts = conflicts;
+    }
+
+    // Getters
+    public List<AppointmentResponse> getCreated() { return created; }
+    public List<OccurrenceConflict> getConflicts() { return conflicts; }
+}
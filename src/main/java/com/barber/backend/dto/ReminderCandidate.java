@@ -0,0 +1,7 @@
+package com.barber.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Turno con un recordatorio pendiente: solo lo necesario para agendarlo en memoria
+public record ReminderCandidate(Long appointmentId, LocalDateTime startTime) {
+}
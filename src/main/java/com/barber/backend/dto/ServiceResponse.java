@@ -10,9 +10,11 @@ public class ServiceResponse {
     private Boolean active; // NUEVO
     private Long barbershopId; // NUEVO
     private String barbershopName; // NUEVO
+    private long version;
 
     public ServiceResponse(Long id, String name, String description, Double price, 
-                          Integer duration, Boolean active, Long barbershopId, String barbershopName) {
+                          Integer duration, Boolean active, Long barbershopId, String barbershopName,
+                          long version) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -21,6 +23,7 @@ public class ServiceResponse {
         this.active = active;
         this.barbershopId = barbershopId;
         this.barbershopName = barbershopName;
+        this.version = version;
     }
 
     // Getters
@@ -32,4 +35,5 @@ public class ServiceResponse {
     public Boolean getActive() { return active; }
     public Long getBarbershopId() { return barbershopId; }
     public String getBarbershopName() { return barbershopName; }
+    public long getVersion() { return version; }
 }
\ No newline at end of file
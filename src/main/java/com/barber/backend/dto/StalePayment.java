@@ -0,0 +1,5 @@
+package com.barber.backend.dto;
+
+// Pago sin resolver y lo necesario para consultarlo en la pasarela
+public record StalePayment(Long paymentId, Long appointmentId, Long barbershopId, String accessToken) {
+}
@@ -0,0 +1,15 @@
+package com.barber.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * El horario pedido ya está ocupado por otro turno del profesional (HTTP 409)
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AppointmentConflictException extends RuntimeException {
+
+    public AppointmentConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.barber.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Otra request modificó la misma peluquería, servicio o profesional mientras se
+ * guardaba este cambio (HTTP 409). El cliente debe recargar los datos y reintentar.
+ *
+ * Barbershop, ServiceEntity y Professional tienen un campo @Version que se incrementa
+ * en cada modificación (también es el ETag del catálogo). Si dos requests guardan la
+ * misma fila a la vez, la segunda falla con ObjectOptimisticLockingFailureException y
+ * el servicio la traduce a esta excepción sin tocar los caches.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CatalogUpdateConflictException extends RuntimeException {
+
+    public CatalogUpdateConflictException(String message) {
+        super(message);
+    }
+}
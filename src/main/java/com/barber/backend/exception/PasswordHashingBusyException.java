@@ -0,0 +1,16 @@
+package com.barber.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * El pool de hashing de contraseñas está saturado (HTTP 503). Se rechaza enseguida
+ * en lugar de encolar sin límite, así el resto de la API sigue respondiendo.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
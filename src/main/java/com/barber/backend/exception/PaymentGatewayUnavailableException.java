@@ -0,0 +1,16 @@
+package com.barber.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * La pasarela de pagos no está disponible o está saturada (HTTP 503).
+ * Solo afecta a los pagos: el resto de la API sigue respondiendo.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentGatewayUnavailableException extends RuntimeException {
+
+    public PaymentGatewayUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -6,13 +6,16 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "appointments",
        indexes = {
-           @Index(name = "idx_appointment_barbershop", columnList = "barbershop_id"),
-           @Index(name = "idx_appointment_professional_time", columnList = "professional_id, start_time")
+           @Index(name = "idx_appointment_barbershop_time", columnList = "barbershop_id, start_time, id"),
+           @Index(name = "idx_appointment_professional_time", columnList = "professional_id, start_time"),
+           @Index(name = "idx_appointment_start_time", columnList = "start_time")
        })
 public class Appointment {
     
+    // Secuencia con bloques de 50: permite agrupar los INSERT (IDENTITY lo impide)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_seq")
+    @SequenceGenerator(name = "appointments_seq", sequenceName = "appointments_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, name = "start_time")
@@ -51,6 +54,13 @@ public class Appointment {
     // NUEVO: Indicador de si requiere pago
     private Boolean requiresPayment = false;
 
+    // Marcas de recordatorio enviado: evitan reenvíos tras un reinicio
+    @Column(name = "reminder_24h_sent_at")
+    private LocalDateTime reminder24hSentAt;
+
+    @Column(name = "reminder_2h_sent_at")
+    private LocalDateTime reminder2hSentAt;
+
     // ===== GETTERS & SETTERS =====
 
     public Long getId() { return id; }
@@ -85,4 +95,10 @@ public class Appointment {
 
     public Boolean getRequiresPayment() { return requiresPayment; }
     public void setRequiresPayment(Boolean requiresPayment) { this.requiresPayment = requiresPayment; }
+
+    public LocalDateTime getReminder24hSentAt() { return reminder24hSentAt; }
+    public void setReminder24hSentAt(LocalDateTime reminder24hSentAt) { this.reminder24hSentAt = reminder24hSentAt; }
+
+    public LocalDateTime getReminder2hSentAt() { return reminder2hSentAt; }
+    public void setReminder2hSentAt(LocalDateTime reminder2hSentAt) { this.reminder2hSentAt = reminder2hSentAt; }
 }
\ No newline at end of file
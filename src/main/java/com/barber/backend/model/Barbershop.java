@@ -38,6 +38,11 @@ public class Barbershop {
     
     // Configuración de pagos
     private Boolean paymentEnabled = false; // Si la barberia acepta pagos online
+
+    // Bloqueo optimista y ETag del catálogo
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
     
     // Relaciones
     @OneToMany(mappedBy = "barbershop", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -88,6 +93,8 @@ public class Barbershop {
         this.paymentEnabled = paymentEnabled; 
     }
 
+    public long getVersion() { return version; }
+
     public List<Professional> getProfessionals() { return professionals; }
     public void setProfessionals(List<Professional> professionals) { 
         this.professionals = professionals; 
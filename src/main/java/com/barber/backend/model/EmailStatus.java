@@ -0,0 +1,7 @@
+package com.barber.backend.model;
+
+public enum EmailStatus {
+    PENDING,   // En cola (o esperando reintento)
+    SENT,      // Enviado al servidor SMTP
+    FAILED     // Descartado tras agotar los reintentos
+}
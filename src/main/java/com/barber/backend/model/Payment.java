@@ -15,8 +15,7 @@ public class Payment {
     @JoinColumn(name = "appointment_id", nullable = false)
     private Appointment appointment;
 
-    @Column(nullable = false)
-    private String mercadoPagoId; // ID de la preferencia o pago en MP
+    private String mercadoPagoId; // ID de la preferencia en MP (null mientras se está creando)
 
     @Column(nullable = false)
     private Double amount;
@@ -25,6 +24,10 @@ public class Payment {
     @Column(nullable = false)
     private PaymentStatus status;
 
+    // Estado que tenía un pago reutilizado mientras su checkout está reservado (null si el pago es nuevo)
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus reservedFromStatus;
+
     @Column(nullable = false)
     private String currency = "ARS";
 
@@ -63,6 +66,9 @@ public class Payment {
     public PaymentStatus getStatus() { return status; }
     public void setStatus(PaymentStatus status) { this.status = status; }
 
+    public PaymentStatus getReservedFromStatus() { return reservedFromStatus; }
+    public void setReservedFromStatus(PaymentStatus reservedFromStatus) { this.reservedFromStatus = reservedFromStatus; }
+
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
 
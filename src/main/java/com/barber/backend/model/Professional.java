@@ -19,6 +19,11 @@ public class Professional {
     
     private Boolean active = true;
 
+    // Bloqueo optimista y ETag del catálogo
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     // NUEVO: Relación con Barbershop
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "barbershop_id", nullable = false)
@@ -40,6 +45,8 @@ public class Professional {
     public Boolean getActive() { return active; }
     public void setActive(Boolean active) { this.active = active; }
 
+    public long getVersion() { return version; }
+
     // NUEVO: Getter y Setter para Barbershop
     public Barbershop getBarbershop() { return barbershop; }
     public void setBarbershop(Barbershop barbershop) { this.barbershop = barbershop; }
@@ -24,6 +24,11 @@ public class ServiceEntity {
     
     private Boolean active = true;
 
+    // Bloqueo optimista y ETag del catálogo
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     // NUEVO: Relación con Barbershop
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "barbershop_id", nullable = false)
@@ -48,6 +53,8 @@ public class ServiceEntity {
     public Boolean getActive() { return active; }
     public void setActive(Boolean active) { this.active = active; }
 
+    public long getVersion() { return version; }
+
     // NUEVO: Getter y Setter para Barbershop
     public Barbershop getBarbershop() { return barbershop; }
     public void setBarbershop(Barbershop barbershop) { this.barbershop = barbershop; }
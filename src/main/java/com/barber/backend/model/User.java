@@ -29,6 +29,10 @@ public class User {
     // Verificación de email
     private boolean emailVerified = false;
 
+    // Se incrementa al verificar o reenviar el email: invalida los tokens emitidos antes
+    @Column(name = "verification_nonce", nullable = false, columnDefinition = "integer default 0")
+    private int verificationNonce;
+
     // Para ADMINS, asociarlos a una peluquería
     // Los CLIENTES tendrán este campo en null
     @ManyToOne(fetch = FetchType.LAZY)
@@ -102,6 +106,14 @@ public class User {
         this.emailVerified = emailVerified;
     }
 
+    public int getVerificationNonce() {
+        return verificationNonce;
+    }
+
+    public void setVerificationNonce(int verificationNonce) {
+        this.verificationNonce = verificationNonce;
+    }
+
     // Getter y Setter para managedBarbershop
     public Barbershop getManagedBarbershop() {
         return managedBarbershop;
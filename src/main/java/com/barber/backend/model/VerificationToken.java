@@ -1,55 +0,0 @@
-package com.barber.backend.model;
-
-import jakarta.persistence.*;
-import java.time.LocalDateTime;
-
-@Entity
-@Table(name = "verification_tokens")
-public class VerificationToken {
-
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @Column(nullable = false, unique = true)
-    private String token;
-
-    @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
-    private User user;
-
-    @Column(nullable = false)
-    private LocalDateTime expiryDate;
-
-    private boolean used = false;
-
-    // Constructor
-    public VerificationToken() {
-    }
-
-    public VerificationToken(String token, User user, LocalDateTime expiryDate) {
-        this.token = token;
-        this.user = user;
-        this.expiryDate = expiryDate;
-    }
-
-    // Getters & Setters
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-
-    public String getToken() { return token; }
-    public void setToken(String token) { this.token = token; }
-
-    public User getUser() { return user; }
-    public void setUser(User user) { this.user = user; }
-
-    public LocalDateTime getExpiryDate() { return expiryDate; }
-    public void setExpiryDate(LocalDateTime expiryDate) { this.expiryDate = expiryDate; }
-
-    public boolean isUsed() { return used; }
-    public void setUsed(boolean used) { this.used = used; }
-
-    public boolean isExpired() {
-        return LocalDateTime.now().isAfter(expiryDate);
-    }
-}
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.barber.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Notificación de Mercado Pago ya recibida. El id de notificación es único:
+ * los reintentos de Mercado Pago chocan contra él y se descartan.
+ *
+ * La tabla es también la cola de trabajo que vacía WebhookDispatcher.
+ */
+@Entity
+@Table(name = "webhook_notifications",
+       indexes = @Index(name = "idx_webhook_status_next", columnList = "status, next_attempt_at"))
+public class WebhookNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "notification_id", nullable = false, unique = true)
+    private String notificationId;
+
+    @Column(nullable = false)
+    private String type; // payment, merchant_order, ...
+
+    @Column(nullable = false)
+    private Long resourceId; // data.id: id del pago en Mercado Pago
+
+    private Long barbershopId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookStatus status = WebhookStatus.RECEIVED;
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer attempts = 0;
+
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime receivedAt;
+
+    private LocalDateTime processedAt;
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNotificationId() { return notificationId; }
+    public void setNotificationId(String notificationId) { this.notificationId = notificationId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getResourceId() { return resourceId; }
+    public void setResourceId(Long resourceId) { this.resourceId = resourceId; }
+
+    public Long getBarbershopId() { return barbershopId; }
+    public void setBarbershopId(Long barbershopId) { this.barbershopId = barbershopId; }
+
+    public WebhookStatus getStatus() { return status; }
+    public void setStatus(WebhookStatus status) { this.status = status; }
+
+    public Integer getAttempts() { return attempts; }
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
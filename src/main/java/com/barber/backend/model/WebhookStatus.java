@@ -0,0 +1,7 @@
+package com.barber.backend.model;
+
+public enum WebhookStatus {
+    RECEIVED,   // En cola (o esperando reintento)
+    PROCESSED,  // Estado del pago sincronizado
+    FAILED      // Descartada tras agotar los reintentos (dead letter)
+}
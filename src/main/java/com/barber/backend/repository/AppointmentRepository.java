@@ -1,35 +1,147 @@
 package com.barber.backend.repository;
 
+import com.barber.backend.dto.AppointmentOwner;
+import com.barber.backend.dto.AppointmentResponse;
+import com.barber.backend.dto.AppointmentSlot;
+import com.barber.backend.dto.ReminderCandidate;
 import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    // MODIFICADO: Agregar barbershopId y excluir turnos cancelados
+    // Turnos activos de un profesional dentro de un rango
     @Query("""
-        SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END
+        SELECT a
         FROM Appointment a
         WHERE a.professional.id = :professionalId
         AND a.barbershop.id = :barbershopId
         AND a.status != 'CANCELLED'
-        AND (
-            (a.startTime < :endTime AND a.endTime > :startTime)
-        )
+        AND a.startTime < :to
+        AND a.endTime > :from
     """)
-    boolean existsOverlappingAppointment(
+    List<Appointment> findActiveInRange(
             @Param("professionalId") Long professionalId,
             @Param("barbershopId") Long barbershopId,
-            @Param("startTime") LocalDateTime startTime,
-            @Param("endTime") LocalDateTime endTime
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
     );
-    
+
+    // Horarios ocupados de un profesional dentro de un rango (para cargar el índice en memoria)
+    @Query("""
+        SELECT new com.barber.backend.dto.AppointmentSlot(a.id, a.startTime, a.endTime)
+        FROM Appointment a
+        WHERE a.professional.id = :professionalId
+        AND a.barbershop.id = :barbershopId
+        AND a.status != 'CANCELLED'
+        AND a.startTime < :to
+        AND a.endTime > :from
+    """)
+    List<AppointmentSlot> findActiveSlotsInRange(
+            @Param("professionalId") Long professionalId,
+            @Param("barbershopId") Long barbershopId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    // Proyección de turnos con sus relaciones en una sola consulta (evita N+1)
+    @Query("""
+        SELECT new com.barber.backend.dto.AppointmentResponse(
+            a.id, a.startTime, a.endTime, a.status,
+            u.name, p.name, s.name, s.price, s.duration,
+            b.name, b.id, a.notes)
+        FROM Appointment a
+        JOIN a.user u
+        JOIN a.professional p
+        JOIN a.service s
+        JOIN a.barbershop b
+        ORDER BY a.startTime
+    """)
+    List<AppointmentResponse> findAllResponses();
+
+    // Página de turnos de una barberia por keyset sobre (start_time, id):
+    // devuelve los turnos posteriores a (afterStart, afterId) dentro de [from, to)
+    @Query("""
+        SELECT new com.barber.backend.dto.AppointmentResponse(
+            a.id, a.startTime, a.endTime, a.status,
+            u.name, p.name, s.name, s.price, s.duration,
+            b.name, b.id, a.notes)
+        FROM Appointment a
+        JOIN a.user u
+        JOIN a.professional p
+        JOIN a.service s
+        JOIN a.barbershop b
+        WHERE b.id = :barbershopId
+        AND a.startTime >= :from
+        AND a.startTime < :to
+        AND a.status IN :statuses
+        AND (a.startTime > :afterStart OR (a.startTime = :afterStart AND a.id > :afterId))
+        ORDER BY a.startTime, a.id
+    """)
+    List<AppointmentResponse> findPageByBarbershopId(
+            @Param("barbershopId") Long barbershopId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("statuses") Collection<AppointmentStatus> statuses,
+            @Param("afterStart") LocalDateTime afterStart,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    // Historial completo de una barberia leído con cursor (para exportar sin cargarlo en memoria)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT new com.barber.backend.dto.AppointmentResponse(
+            a.id, a.startTime, a.endTime, a.status,
+            u.name, p.name, s.name, s.price, s.duration,
+            b.name, b.id, a.notes)
+        FROM Appointment a
+        JOIN a.user u
+        JOIN a.professional p
+        JOIN a.service s
+        JOIN a.barbershop b
+        WHERE b.id = :barbershopId
+        ORDER BY a.startTime, a.id
+    """)
+    Stream<AppointmentResponse> streamByBarbershopId(@Param("barbershopId") Long barbershopId);
+
+    @Query("""
+        SELECT new com.barber.backend.dto.AppointmentResponse(
+            a.id, a.startTime, a.endTime, a.status,
+            u.name, p.name, s.name, s.price, s.duration,
+            b.name, b.id, a.notes)
+        FROM Appointment a
+        JOIN a.user u
+        JOIN a.professional p
+        JOIN a.service s
+        JOIN a.barbershop b
+        WHERE u.id = :userId
+        ORDER BY a.startTime
+    """)
+    List<AppointmentResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    // Solo los ids de barberia y cliente (usa las FK, sin joins)
+    @Query("SELECT new com.barber.backend.dto.AppointmentOwner(a.barbershop.id, a.user.id) FROM Appointment a WHERE a.id = :id")
+    Optional<AppointmentOwner> findOwnerById(@Param("id") Long id);
+
     // NUEVO: Obtener todos los turnos de una barberia
     List<Appointment> findByBarbershopId(Long barbershopId);
     
@@ -38,4 +150,59 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
     
     // NUEVO: Obtener turnos de un usuario en una barberia específica
     List<Appointment> findByBarbershopIdAndUserId(Long barbershopId, Long userId);
+
+    // Turnos con el recordatorio de 24h sin enviar que empiezan en (from, to]
+    @Query("""
+        SELECT new com.barber.backend.dto.ReminderCandidate(a.id, a.startTime)
+        FROM Appointment a
+        WHERE a.status = :status
+        AND a.reminder24hSentAt IS NULL
+        AND a.startTime > :from
+        AND a.startTime <= :to
+    """)
+    List<ReminderCandidate> findDayBeforeReminderCandidates(@Param("status") AppointmentStatus status,
+                                                            @Param("from") LocalDateTime from,
+                                                            @Param("to") LocalDateTime to);
+
+    // Turnos con el recordatorio de 2h sin enviar que empiezan en (from, to]
+    @Query("""
+        SELECT new com.barber.backend.dto.ReminderCandidate(a.id, a.startTime)
+        FROM Appointment a
+        WHERE a.status = :status
+        AND a.reminder2hSentAt IS NULL
+        AND a.startTime > :from
+        AND a.startTime <= :to
+    """)
+    List<ReminderCandidate> findTwoHourReminderCandidates(@Param("status") AppointmentStatus status,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+
+    // Marca el recordatorio como enviado solo si el turno sigue igual y nadie lo marcó antes
+    @Modifying
+    @Query("""
+        UPDATE Appointment a
+        SET a.reminder24hSentAt = :sentAt
+        WHERE a.id = :id
+        AND a.startTime = :startTime
+        AND a.status = :status
+        AND a.reminder24hSentAt IS NULL
+    """)
+    int markDayBeforeReminderSent(@Param("id") Long id,
+                                  @Param("startTime") LocalDateTime startTime,
+                                  @Param("status") AppointmentStatus status,
+                                  @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("""
+        UPDATE Appointment a
+        SET a.reminder2hSentAt = :sentAt
+        WHERE a.id = :id
+        AND a.startTime = :startTime
+        AND a.status = :status
+        AND a.reminder2hSentAt IS NULL
+    """)
+    int markTwoHourReminderSent(@Param("id") Long id,
+                                @Param("startTime") LocalDateTime startTime,
+                                @Param("status") AppointmentStatus status,
+                                @Param("sentAt") LocalDateTime sentAt);
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.barber.backend.repository;
 
 import com.barber.backend.model.Barbershop;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,5 +13,13 @@ public interface BarbershopRepository extends JpaRepository<Barbershop, Long> {
     
     Optional<Barbershop> findBySlug(String slug);
     
+    // Peluquería con todos sus servicios en una sola consulta (se filtran los activos en memoria)
+    @Query("SELECT DISTINCT b FROM Barbershop b LEFT JOIN FETCH b.services WHERE b.slug = :slug")
+    Optional<Barbershop> findBySlugWithServices(@Param("slug") String slug);
+    
     boolean existsBySlug(String slug);
+    
+    // Solo el token de Mercado Pago (para consultar pagos desde los webhooks)
+    @Query("SELECT b.mercadoPagoAccessToken FROM Barbershop b WHERE b.id = :id")
+    Optional<String> findMercadoPagoAccessTokenById(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.barber.backend.repository;
+
+import com.barber.backend.model.EmailOutboxMessage;
+import com.barber.backend.model.EmailStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Toma un lote de emails vencidos; SKIP LOCKED evita que dos workers tomen el mismo
+    @Query(value = """
+        SELECT *
+        FROM email_outbox
+        WHERE status = 'PENDING'
+        AND next_attempt_at <= :now
+        ORDER BY next_attempt_at
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<EmailOutboxMessage> lockDueMessages(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(EmailStatus status);
+}
@@ -1,9 +1,20 @@
 package com.barber.backend.repository;
 
+import com.barber.backend.dto.StalePayment;
 import com.barber.backend.model.Payment;
+import com.barber.backend.model.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +23,61 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByAppointmentId(Long appointmentId);
     
     Optional<Payment> findByMercadoPagoId(String mercadoPagoId);
+    
+    // Bloquea el pago: dos notificaciones del mismo pago no se aplican a la vez
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.appointment.id = :appointmentId")
+    Optional<Payment> lockByAppointmentId(@Param("appointmentId") Long appointmentId);
+    
+    // Bloquea un lote de pagos en una sola consulta (conciliación). Filtra por estado después
+    // de tomar el lock: un webhook pudo resolver el pago mientras se consultaba la pasarela
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id IN :ids AND p.status IN :statuses")
+    List<Payment> lockAllByIdAndStatusIn(@Param("ids") Collection<Long> ids,
+                                         @Param("statuses") Collection<PaymentStatus> statuses);
+    
+    // Pagos sin resolver para conciliar, paginados por id (keyset)
+    @Query("""
+        SELECT new com.barber.backend.dto.StalePayment(p.id, a.id, b.id, b.mercadoPagoAccessToken)
+        FROM Payment p
+        JOIN p.appointment a
+        JOIN a.barbershop b
+        WHERE p.status IN :statuses
+        AND p.mercadoPagoId IS NOT NULL
+        AND p.createdAt < :createdBefore
+        AND p.createdAt >= :createdAfter
+        AND p.id > :afterId
+        ORDER BY p.id
+    """)
+    List<StalePayment> findStalePayments(@Param("statuses") Collection<PaymentStatus> statuses,
+                                         @Param("createdBefore") LocalDateTime createdBefore,
+                                         @Param("createdAfter") LocalDateTime createdAfter,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    // Reservas de checkout que nunca se completaron (el proceso murió durante la llamada a MP)
+    // y que crearon el pago: se borran
+    @Modifying
+    @Query("""
+        DELETE FROM Payment p
+        WHERE p.status = :status
+        AND p.mercadoPagoId IS NULL
+        AND p.reservedFromStatus IS NULL
+        AND p.createdAt < :cutoff
+    """)
+    int deleteOrphanedReservations(@Param("status") PaymentStatus status,
+                                   @Param("cutoff") LocalDateTime cutoff);
+
+    // Reservas huérfanas que reutilizaron un pago anterior: vuelve al estado que tenía
+    @Modifying
+    @Query("""
+        UPDATE Payment p
+        SET p.status = p.reservedFromStatus, p.reservedFromStatus = NULL
+        WHERE p.status = :status
+        AND p.mercadoPagoId IS NULL
+        AND p.reservedFromStatus IS NOT NULL
+        AND p.createdAt < :cutoff
+    """)
+    int restoreOrphanedReservations(@Param("status") PaymentStatus status,
+                                    @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
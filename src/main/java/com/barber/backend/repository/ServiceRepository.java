@@ -2,6 +2,8 @@ package com.barber.backend.repository;
 
 import com.barber.backend.model.ServiceEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,4 +20,8 @@ public interface ServiceRepository extends JpaRepository<ServiceEntity, Long> {
     
     // NUEVO: Validar que un servicio pertenece a una barberia específica
     Optional<ServiceEntity> findByIdAndBarbershopId(Long id, Long barbershopId);
+    
+    // Solo el id de la barberia (para chequeos de autorización)
+    @Query("SELECT s.barbershop.id FROM ServiceEntity s WHERE s.id = :id")
+    Optional<Long> findBarbershopIdById(@Param("id") Long id);
 }
\ No newline at end of file
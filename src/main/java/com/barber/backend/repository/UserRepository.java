@@ -2,7 +2,11 @@ package com.barber.backend.repository;
 
 import com.barber.backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,4 +16,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // Verifica el email solo si el token trae el nonce vigente; consumirlo lo incrementa
+    @Modifying
+    @Query("""
+        UPDATE User u
+        SET u.emailVerified = true, u.verificationNonce = u.verificationNonce + 1
+        WHERE u.id = :id
+        AND u.verificationNonce = :nonce
+        AND u.emailVerified = false
+    """)
+    int markEmailVerified(@Param("id") Long id, @Param("nonce") int nonce);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
\ No newline at end of file
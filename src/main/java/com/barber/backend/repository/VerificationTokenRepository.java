@@ -1,15 +0,0 @@
-package com.barber.backend.repository;
-
-import com.barber.backend.model.VerificationToken;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-
-@Repository
-public interface VerificationTokenRepository extends JpaRepository<VerificationToken, Long> {
-    
-    Optional<VerificationToken> findByToken(String token);
-    
-    void deleteByUserId(Long userId);
-}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.barber.backend.repository;
+
+import com.barber.backend.model.WebhookNotification;
+import com.barber.backend.model.WebhookStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WebhookNotificationRepository extends JpaRepository<WebhookNotification, Long> {
+
+    // Devuelve 0 si la notificación ya existía (reintento de Mercado Pago)
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO webhook_notifications
+            (notification_id, type, resource_id, barbershop_id, status, attempts, next_attempt_at, received_at)
+        VALUES (:notificationId, :type, :resourceId, :barbershopId, 'RECEIVED', 0, :receivedAt, :receivedAt)
+        ON CONFLICT (notification_id) DO NOTHING
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("notificationId") String notificationId,
+                       @Param("type") String type,
+                       @Param("resourceId") Long resourceId,
+                       @Param("barbershopId") Long barbershopId,
+                       @Param("receivedAt") LocalDateTime receivedAt);
+
+    // Toma un lote de notificaciones vencidas; SKIP LOCKED evita que dos workers tomen la misma
+    @Query(value = """
+        SELECT *
+        FROM webhook_notifications
+        WHERE status = 'RECEIVED'
+        AND next_attempt_at <= :now
+        ORDER BY next_attempt_at
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<WebhookNotification> lockDueNotifications(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(WebhookStatus status);
+
+    @Query("SELECT MIN(w.receivedAt) FROM WebhookNotification w WHERE w.status = :status")
+    Optional<LocalDateTime> findOldestReceivedAt(@Param("status") WebhookStatus status);
+}
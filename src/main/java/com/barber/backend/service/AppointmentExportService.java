@@ -0,0 +1,113 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.AppointmentResponse;
+import com.barber.backend.repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+/**
+ * Exporta el historial de turnos de una barberia fila a fila, leyendo con un cursor
+ * de la BD y escribiendo directo en la respuesta. La memoria usada no depende del
+ * tamaño del historial.
+ */
+@Service
+public class AppointmentExportService {
+
+    private static final String CSV_HEADER =
+            "id,fecha,hora_inicio,hora_fin,estado,cliente,profesional,servicio,precio,duracion,notas";
+
+    // Caracteres con los que Excel y compañía interpretan una celda como fórmula
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final AppointmentRepository appointmentRepository;
+    private final ObjectMapper objectMapper;
+
+    public AppointmentExportService(AppointmentRepository appointmentRepository,
+                                    ObjectMapper objectMapper) {
+        this.appointmentRepository = appointmentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // El cursor de PostgreSQL solo funciona dentro de una transacción
+    @Transactional(readOnly = true)
+    public void exportCsv(Long barbershopId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        try (Stream<AppointmentResponse> rows = appointmentRepository.streamByBarbershopId(barbershopId)) {
+            rows.forEach(row -> writeLine(writer, toCsv(row)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    @Transactional(readOnly = true)
+    public void exportNdjson(Long barbershopId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        try (Stream<AppointmentResponse> rows = appointmentRepository.streamByBarbershopId(barbershopId)) {
+            rows.forEach(row -> {
+                try {
+                    writeLine(writer, objectMapper.writeValueAsString(row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsv(AppointmentResponse row) {
+        return String.join(",",
+                String.valueOf(row.getId()),
+                String.valueOf(row.getDate()),
+                String.valueOf(row.getStartTime()),
+                String.valueOf(row.getEndTime()),
+                row.getStatus(),
+                csvField(row.getClientName()),
+                csvField(row.getProfessionalName()),
+                csvField(row.getServiceName()),
+                String.valueOf(row.getServicePrice()),
+                String.valueOf(row.getServiceDuration()),
+                csvField(row.getNotes()));
+    }
+
+    // Comillas solo cuando el valor tiene separadores, comillas o saltos de línea (RFC 4180)
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Un valor que empieza como fórmula se ejecutaría al abrir el CSV en una planilla
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
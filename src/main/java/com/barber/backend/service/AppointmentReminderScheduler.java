@@ -0,0 +1,368 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.ReminderCandidate;
+import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.repository.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recordatorios de turno 24h y 2h antes del inicio, sin recorrer la tabla de turnos
+ * en cada minuto.
+ *
+ * Cada cierto intervalo se cargan de la BD solo los recordatorios que vencen en el
+ * próximo tramo de tiempo y se agendan en una rueda de tiempos en memoria; cada tick
+ * de la rueda entrega los vencidos a un pool acotado que encola el email. Las altas,
+ * cancelaciones y reactivaciones de turnos actualizan la rueda después del commit.
+ *
+ * Lo que garantiza que no se reenvíe ni se pierda un recordatorio es la marca en la BD
+ * (reminder_24h_sent_at / reminder_2h_sent_at): se actualiza de forma condicional en la
+ * misma transacción que encola el email, así que con varias instancias o tras un
+ * reinicio solo una de ellas lo envía.
+ */
+@Component
+public class AppointmentReminderScheduler {
+
+    // Con 512 posiciones y ticks de 10s una vuelta cubre ~85 minutos; lo que vence más
+    // lejos queda en su posición y se descarta por vueltas hasta que le toque
+    private static final int WHEEL_SIZE = 512;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    enum ReminderKind {
+        DAY_BEFORE(Duration.ofHours(24), "mañana"),
+        TWO_HOURS(Duration.ofHours(2), "en 2 horas");
+
+        private final Duration offset;
+        private final String when;
+
+        ReminderKind(Duration offset, String when) {
+            this.offset = offset;
+            this.when = when;
+        }
+
+        LocalDateTime dueAt(LocalDateTime startTime) {
+            return startTime.minus(offset);
+        }
+
+        // Pasado este momento el recordatorio ya no tiene sentido: el de 24h cede su
+        // lugar al de 2h y el de 2h no se manda con el turno empezado
+        LocalDateTime expiresAt(LocalDateTime startTime) {
+            return this == DAY_BEFORE ? TWO_HOURS.dueAt(startTime) : startTime;
+        }
+    }
+
+    private record ReminderKey(Long appointmentId, ReminderKind kind) {}
+
+    private record Reminder(ReminderKey key, LocalDateTime startTime) {}
+
+    private final AppointmentRepository appointmentRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Recordatorio vigente por clave: las entradas de la rueda que ya no coinciden se descartan
+    private final ConcurrentMap<ReminderKey, Reminder> scheduled = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter sentCounter;
+    private final Counter skippedCounter;
+    private final Counter errorCounter;
+
+    private final long tickMillis;
+    private final Duration bucket;
+
+    // Hasta dónde ya se leyó de la BD; solo lo toca el cargador programado
+    private volatile LocalDateTime loadedUntil;
+
+    public AppointmentReminderScheduler(AppointmentRepository appointmentRepository,
+                                        EmailService emailService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.reminders.tick-ms:10000}") long tickMillis,
+                                        @Value("${app.reminders.bucket-minutes:60}") long bucketMinutes,
+                                        @Value("${app.reminders.workers:4}") int workers,
+                                        @Value("${app.reminders.queue-capacity:500}") int queueCapacity) {
+        this.appointmentRepository = appointmentRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.bucket = Duration.ofMinutes(bucketMinutes);
+        this.wheel = new TimingWheel(WHEEL_SIZE, currentTick());
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+
+        this.sentCounter = meterRegistry.counter("appointments.reminders.sent");
+        this.skippedCounter = meterRegistry.counter("appointments.reminders.skipped");
+        this.errorCounter = meterRegistry.counter("appointments.reminders.errors");
+        Gauge.builder("appointments.reminders.scheduled", scheduled, ConcurrentMap::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agenda (o reagenda) los recordatorios del turno cuando la transacción confirma.
+     * Si el turno ya no está activo, los quita.
+     */
+    public void track(Appointment appointment) {
+        Long id = appointment.getId();
+        LocalDateTime startTime = appointment.getStartTime();
+        boolean active = appointment.getStatus() == AppointmentStatus.SCHEDULED;
+
+        afterCommit(() -> {
+            if (!active) {
+                cancel(id);
+                return;
+            }
+            // Lo que vence después del tramo cargado lo va a leer el cargador; lo anterior
+            // se agenda acá (agendar dos veces no duplica: la clave es la misma)
+            LocalDateTime horizon = LocalDateTime.now().plus(bucket);
+            for (ReminderKind kind : ReminderKind.values()) {
+                LocalDateTime due = kind.dueAt(startTime);
+                if (due.isBefore(horizon) && !due.isBefore(LocalDateTime.now())) {
+                    schedule(new Reminder(new ReminderKey(id, kind), startTime));
+                } else {
+                    // Un turno reprogramado no debe conservar el recordatorio del horario anterior
+                    scheduled.remove(new ReminderKey(id, kind));
+                }
+            }
+        });
+    }
+
+    /**
+     * Quita los recordatorios de un turno eliminado, después del commit
+     */
+    public void untrack(Appointment appointment) {
+        Long id = appointment.getId();
+        afterCommit(() -> cancel(id));
+    }
+
+    /**
+     * Carga el próximo tramo de recordatorios. La primera corrida parte de la marca en la
+     * BD: toma todos los no enviados que todavía no vencieron, sin importar cuánto tiempo
+     * estuvo apagada la aplicación.
+     */
+    @Scheduled(fixedDelayString = "${app.reminders.load-interval-ms:300000}")
+    public void loadUpcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(bucket);
+        if (loadedUntil != null && !until.isAfter(loadedUntil)) {
+            return;
+        }
+
+        try {
+            List<ReminderCandidate> dayBefore = appointmentRepository.findDayBeforeReminderCandidates(
+                    AppointmentStatus.SCHEDULED,
+                    loadFrom(ReminderKind.DAY_BEFORE, now), until.plus(ReminderKind.DAY_BEFORE.offset));
+            List<ReminderCandidate> twoHours = appointmentRepository.findTwoHourReminderCandidates(
+                    AppointmentStatus.SCHEDULED,
+                    loadFrom(ReminderKind.TWO_HOURS, now), until.plus(ReminderKind.TWO_HOURS.offset));
+
+            for (ReminderCandidate candidate : dayBefore) {
+                schedule(new Reminder(
+                        new ReminderKey(candidate.appointmentId(), ReminderKind.DAY_BEFORE), candidate.startTime()));
+            }
+            for (ReminderCandidate candidate : twoHours) {
+                schedule(new Reminder(
+                        new ReminderKey(candidate.appointmentId(), ReminderKind.TWO_HOURS), candidate.startTime()));
+            }
+            loadedUntil = until;
+        } catch (Exception e) {
+            // Sin avanzar loadedUntil: la próxima corrida vuelve a pedir el mismo tramo
+            System.err.println("Error al cargar recordatorios de turnos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta el tick actual y entrega los recordatorios vencidos al pool
+     */
+    @Scheduled(fixedRateString = "${app.reminders.tick-ms:10000}")
+    public void tick() {
+        for (Reminder reminder : wheel.advanceTo(currentTick())) {
+            // Si fue cancelado o reemplazado después de agendarlo, se descarta
+            if (!scheduled.remove(reminder.key(), reminder)) {
+                continue;
+            }
+            try {
+                executor.execute(() -> fire(reminder));
+            } catch (RejectedExecutionException e) {
+                // Pool saturado: se reintenta en el próximo tick sin frenar al scheduler
+                scheduled.put(reminder.key(), reminder);
+                wheel.add(reminder, currentTick() + 1);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Inicio (exclusivo) del rango de startTime a leer para un tipo de recordatorio.
+     * Antes de la primera carga es el primer turno cuyo recordatorio aún no venció
+     * (24h: empieza en más de 2h; 2h: no empezó); después, lo ya leído.
+     */
+    private LocalDateTime loadFrom(ReminderKind kind, LocalDateTime now) {
+        LocalDateTime unexpired = kind == ReminderKind.DAY_BEFORE ? now.plus(ReminderKind.TWO_HOURS.offset) : now;
+        if (loadedUntil == null) {
+            return unexpired;
+        }
+        LocalDateTime loaded = loadedUntil.plus(kind.offset);
+        return loaded.isAfter(unexpired) ? loaded : unexpired;
+    }
+
+    private void schedule(Reminder reminder) {
+        scheduled.put(reminder.key(), reminder);
+        wheel.add(reminder, tickOf(reminder.key().kind().dueAt(reminder.startTime())));
+    }
+
+    private void cancel(Long appointmentId) {
+        for (ReminderKind kind : ReminderKind.values()) {
+            scheduled.remove(new ReminderKey(appointmentId, kind));
+        }
+    }
+
+    private void fire(Reminder reminder) {
+        Long id = reminder.key().appointmentId();
+        ReminderKind kind = reminder.key().kind();
+
+        try {
+            boolean sent = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (!now.isBefore(kind.expiresAt(reminder.startTime()))) {
+                    return false;
+                }
+
+                // Solo una instancia logra marcarlo; si el turno cambió de horario o se canceló, ninguna
+                int claimed = kind == ReminderKind.DAY_BEFORE
+                        ? appointmentRepository.markDayBeforeReminderSent(
+                                id, reminder.startTime(), AppointmentStatus.SCHEDULED, now)
+                        : appointmentRepository.markTwoHourReminderSent(
+                                id, reminder.startTime(), AppointmentStatus.SCHEDULED, now);
+                if (claimed != 1) {
+                    return false;
+                }
+
+                Appointment appointment = appointmentRepository.findById(id).orElseThrow();
+                emailService.sendAppointmentReminder(
+                        appointment.getUser().getEmail(),
+                        appointment.getUser().getName(),
+                        kind.when,
+                        appointment.getBarbershop().getName(),
+                        appointment.getProfessional().getName(),
+                        appointment.getService().getName(),
+                        appointment.getStartTime().format(DATE_FORMAT),
+                        appointment.getStartTime().format(TIME_FORMAT));
+                return true;
+            }));
+
+            if (sent) {
+                sentCounter.increment();
+            } else {
+                skippedCounter.increment();
+            }
+        } catch (Exception e) {
+            // La marca no quedó guardada: la recuperación al reiniciar lo vuelve a intentar
+            errorCounter.increment();
+            System.err.println("Error al enviar recordatorio del turno " + id + ": " + e.getMessage());
+        }
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+
+    private long tickOf(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli() / tickMillis;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Rueda de tiempos con hash: cada posición es una lista de recordatorios y cada
+     * entrada guarda su tick de vencimiento, así una posición puede tener entradas de
+     * varias vueltas. Agregar es O(1) y avanzar solo recorre las posiciones que pasaron.
+     */
+    private static final class TimingWheel {
+
+        private record Entry(Reminder reminder, long deadlineTick) {}
+
+        private final List<ArrayDeque<Entry>> slots;
+        private final int mask;
+        private long currentTick;
+
+        TimingWheel(int size, long startTick) {
+            this.slots = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                slots.add(new ArrayDeque<>());
+            }
+            this.mask = size - 1;
+            this.currentTick = startTick;
+        }
+
+        synchronized void add(Reminder reminder, long deadlineTick) {
+            // Lo ya vencido sale en el próximo tick
+            long tick = Math.max(deadlineTick, currentTick + 1);
+            slots.get((int) (tick & mask)).add(new Entry(reminder, tick));
+        }
+
+        synchronized List<Reminder> advanceTo(long tick) {
+            List<Reminder> due = new ArrayList<>();
+            if (tick <= currentTick) {
+                return due;
+            }
+
+            // Tras una pausa larga alcanza con una vuelta completa: cada posición se visita una vez
+            long steps = Math.min(tick - currentTick, slots.size());
+            for (long t = tick - steps + 1; t <= tick; t++) {
+                Iterator<Entry> entries = slots.get((int) (t & mask)).iterator();
+                while (entries.hasNext()) {
+                    Entry entry = entries.next();
+                    if (entry.deadlineTick() <= tick) {
+                        due.add(entry.reminder());
+                        entries.remove();
+                    }
+                }
+            }
+            currentTick = tick;
+            return due;
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.barber.backend.service;
 
+import com.barber.backend.config.DatabaseSchemaInitializer;
+import com.barber.backend.config.ResourceOwnershipCache;
 import com.barber.backend.dto.*;
+import com.barber.backend.exception.AppointmentConflictException;
 import com.barber.backend.model.*;
 import com.barber.backend.repository.*;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,23 +29,47 @@ public class AppointmentService {
     private static final LocalTime BREAK_START = LocalTime.of(13, 0);
     private static final LocalTime BREAK_END = LocalTime.of(16, 0);
     private static final LocalTime CLOSING_TIME = LocalTime.of(20, 0);
+
+    // Granularidad de los horarios de inicio ofrecidos como disponibles
+    private static final int SLOT_STEP_MINUTES = 5;
+
+    // Tamaño máximo de página del listado de turnos para admins
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Hasta cuántos días adelante se informa disponibilidad (cada día consultado ocupa memoria en el índice)
+    private static final int MAX_AVAILABILITY_DAYS_AHEAD = 90;
+
+    // Máximo de turnos de una serie recurrente (un año semanal)
+    private static final int MAX_RECURRING_OCCURRENCES = 52;
+
+    // Minutos del día dentro del horario de atención (sin el descanso), calculado una sola vez
+    private static final BitSet WORKING_MINUTES = workingMinutes();
     
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final ProfessionalRepository professionalRepository;
     private final ServiceRepository serviceRepository;
     private final BarbershopRepository barbershopRepository; // NUEVO
+    private final AppointmentSlotIndex slotIndex;
+    private final ResourceOwnershipCache ownershipCache;
+    private final AppointmentReminderScheduler reminderScheduler;
 
     public AppointmentService(AppointmentRepository appointmentRepository,
                               UserRepository userRepository,
                               ProfessionalRepository professionalRepository,
                               ServiceRepository serviceRepository,
-                              BarbershopRepository barbershopRepository) { // NUEVO
+                              BarbershopRepository barbershopRepository, // NUEVO
+                              AppointmentSlotIndex slotIndex,
+                              ResourceOwnershipCache ownershipCache,
+                              AppointmentReminderScheduler reminderScheduler) {
         this.appointmentRepository = appointmentRepository;
         this.userRepository = userRepository;
         this.professionalRepository = professionalRepository;
         this.serviceRepository = serviceRepository;
         this.barbershopRepository = barbershopRepository; // NUEVO
+        this.slotIndex = slotIndex;
+        this.ownershipCache = ownershipCache;
+        this.reminderScheduler = reminderScheduler;
     }
 
     @Transactional
@@ -77,30 +110,22 @@ public class AppointmentService {
         // 6. Calcular fin
         LocalDateTime end = start.plusMinutes(service.getDuration());
 
-        LocalTime startTime = start.toLocalTime();
-        LocalTime endTime = end.toLocalTime();
-
-        // 7. Validar horario laboral
-        if (startTime.isBefore(OPENING_TIME) || endTime.isAfter(CLOSING_TIME)) {
-            throw new RuntimeException("Horario fuera de atención (09:00 - 20:00)");
+        // 7-8. Validar horario laboral y de descanso
+        String scheduleProblem = scheduleProblem(start, end);
+        if (scheduleProblem != null) {
+            throw new RuntimeException(scheduleProblem);
         }
 
-        // 8. Validar horario de descanso
-        boolean overlapsBreak = startTime.isBefore(BREAK_END) && endTime.isAfter(BREAK_START);
-        if (overlapsBreak) {
-            throw new RuntimeException("Horario no disponible (descanso 13:00 - 16:00)");
-        }
-
-        // 9. Validar superposición de turnos (MODIFICADO: ahora con barbershopId)
-        boolean overlaps = appointmentRepository.existsOverlappingAppointment(
+        // 9. Validar superposición de turnos contra el índice en memoria
+        boolean overlaps = slotIndex.overlaps(
+                barbershop.getId(),
                 professional.getId(),
-                barbershop.getId(), // NUEVO parámetro
                 start,
                 end
         );
 
         if (overlaps) {
-            throw new RuntimeException("El profesional ya tiene un turno en ese horario");
+            throw new AppointmentConflictException("El profesional ya tiene un turno en ese horario");
         }
 
         // 10. Crear el turno
@@ -114,33 +139,291 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.SCHEDULED);
         appointment.setNotes(request.getNotes()); // NUEVO
 
-        Appointment saved = appointmentRepository.save(appointment);
+        // La restricción de exclusión de la BD rechaza reservas concurrentes de otras instancias
+        Appointment saved;
+        try {
+            saved = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new AppointmentConflictException("El profesional ya tiene un turno en ese horario");
+            }
+            throw e;
+        }
+
+        // 11. Reservar el horario en el índice (otra reserva pudo ganarle mientras tanto)
+        if (!slotIndex.reserve(saved)) {
+            throw new AppointmentConflictException("El profesional ya tiene un turno en ese horario");
+        }
+        reminderScheduler.track(saved);
 
         return mapToResponse(saved);
     }
 
+    /**
+     * Reserva una serie de turnos (cada N semanas a la misma hora). Toda la serie se valida
+     * contra una sola consulta de los turnos del profesional en el rango; las fechas que
+     * chocan se informan y el resto se inserta en lotes JDBC dentro de una transacción.
+     */
+    @Transactional
+    public RecurringAppointmentResponse createRecurringAppointments(RecurringAppointmentRequest request,
+                                                                    Long userId) {
+
+        if (request.getStartDate() == null || request.getEndDate() == null || request.getTime() == null) {
+            throw new RuntimeException("Faltan la fecha de inicio, la fecha de fin o la hora");
+        }
+        int intervalWeeks = request.getIntervalWeeks() != null ? request.getIntervalWeeks() : 1;
+        if (intervalWeeks < 1) {
+            throw new RuntimeException("El intervalo debe ser de al menos una semana");
+        }
+
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = request.getStartDate();
+             !date.isAfter(request.getEndDate());
+             date = date.plusWeeks(intervalWeeks)) {
+            dates.add(date);
+        }
+        if (dates.isEmpty()) {
+            throw new RuntimeException("La serie no tiene fechas");
+        }
+        if (dates.size() > MAX_RECURRING_OCCURRENCES) {
+            throw new RuntimeException("Una serie puede tener como máximo " + MAX_RECURRING_OCCURRENCES + " turnos");
+        }
+
+        // Las cuatro validaciones de entidades se hacen una sola vez para toda la serie
+        Barbershop barbershop = barbershopRepository.findById(request.getBarbershopId())
+                .orElseThrow(() -> new RuntimeException("Peluquería no encontrada"));
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        if (!user.isEmailVerified()) {
+            throw new RuntimeException("Debes verificar tu email antes de crear un turno");
+        }
+
+        Professional professional = professionalRepository
+                .findByIdAndBarbershopId(request.getProfessionalId(), request.getBarbershopId())
+                .orElseThrow(() -> new RuntimeException(
+                        "Profesional no encontrado o no pertenece a esta peluquería"));
+
+        ServiceEntity service = serviceRepository
+                .findByIdAndBarbershopId(request.getServiceId(), request.getBarbershopId())
+                .orElseThrow(() -> new RuntimeException(
+                        "Servicio no encontrado o no pertenece a esta peluquería"));
+
+        // Una sola consulta con todos los turnos activos del profesional en el rango de la serie
+        LocalDateTime rangeStart = dates.get(0).atStartOfDay();
+        LocalDateTime rangeEnd = dates.get(dates.size() - 1).plusDays(1).atStartOfDay();
+        List<Appointment> existing = appointmentRepository.findActiveInRange(
+                professional.getId(), barbershop.getId(), rangeStart, rangeEnd);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Appointment> accepted = new ArrayList<>();
+        List<OccurrenceConflict> conflicts = new ArrayList<>();
+
+        for (LocalDate date : dates) {
+            LocalDateTime start = LocalDateTime.of(date, request.getTime());
+            LocalDateTime end = start.plusMinutes(service.getDuration());
+
+            String problem = start.isBefore(now) ? "No se puede reservar ese turno" : scheduleProblem(start, end);
+            if (problem == null && overlapsAny(existing, start, end)) {
+                problem = "El profesional ya tiene un turno en ese horario";
+            }
+            if (problem != null) {
+                conflicts.add(new OccurrenceConflict(date, request.getTime(), problem));
+                continue;
+            }
+
+            Appointment appointment = new Appointment();
+            appointment.setUser(user);
+            appointment.setProfessional(professional);
+            appointment.setService(service);
+            appointment.setBarbershop(barbershop);
+            appointment.setStartTime(start);
+            appointment.setEndTime(end);
+            appointment.setStatus(AppointmentStatus.SCHEDULED);
+            appointment.setNotes(request.getNotes());
+            accepted.add(appointment);
+        }
+
+        // Con ids de secuencia los INSERT salen agrupados (hibernate.jdbc.batch_size)
+        List<Appointment> saved;
+        try {
+            saved = appointmentRepository.saveAllAndFlush(accepted);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new AppointmentConflictException(
+                        "Otro turno ocupó uno de los horarios de la serie, intentá de nuevo");
+            }
+            throw e;
+        }
+
+        List<AppointmentResponse> created = new ArrayList<>(saved.size());
+        for (Appointment appointment : saved) {
+            if (!slotIndex.reserve(appointment)) {
+                throw new AppointmentConflictException(
+                        "Otro turno ocupó uno de los horarios de la serie, intentá de nuevo");
+            }
+            reminderScheduler.track(appointment);
+            created.add(mapToResponse(appointment));
+        }
+
+        return new RecurringAppointmentResponse(created, conflicts);
+    }
+
+    // Horarios de inicio libres de un profesional para un servicio en una fecha
+    @Transactional(readOnly = true)
+    public AvailabilityResponse getAvailability(Long barbershopId, Long professionalId,
+                                                Long serviceId, LocalDate date) {
+
+        professionalRepository.findByIdAndBarbershopId(professionalId, barbershopId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Profesional no encontrado o no pertenece a esta peluquería"));
+
+        ServiceEntity service = serviceRepository.findByIdAndBarbershopId(serviceId, barbershopId)
+                .orElseThrow(() -> new RuntimeException(
+                        "Servicio no encontrado o no pertenece a esta peluquería"));
+
+        int duration = service.getDuration();
+        List<LocalTime> availableTimes = new ArrayList<>();
+
+        LocalDateTime now = LocalDateTime.now();
+        if (date.isBefore(now.toLocalDate())
+                || date.isAfter(now.toLocalDate().plusDays(MAX_AVAILABILITY_DAYS_AHEAD))) {
+            return new AvailabilityResponse(date, professionalId, serviceId, duration, availableTimes);
+        }
+
+        // Libre = horario de atención menos los minutos ocupados por otros turnos
+        BitSet free = (BitSet) WORKING_MINUTES.clone();
+        free.andNot(slotIndex.occupiedMinutes(barbershopId, professionalId, date));
+
+        int opening = OPENING_TIME.toSecondOfDay() / 60;
+        int closing = CLOSING_TIME.toSecondOfDay() / 60;
+
+        for (int minute = opening; minute + duration <= closing; minute += SLOT_STEP_MINUTES) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+
+            if (date.equals(now.toLocalDate()) && time.isBefore(now.toLocalTime())) {
+                continue;
+            }
+
+            // Todos los minutos del turno deben estar libres
+            if (free.nextClearBit(minute) >= minute + duration) {
+                availableTimes.add(time);
+            }
+        }
+
+        return new AvailabilityResponse(date, professionalId, serviceId, duration, availableTimes);
+    }
+
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null
+                && message.contains(DatabaseSchemaInitializer.APPOINTMENT_OVERLAP_CONSTRAINT);
+    }
+
+    private static BitSet workingMinutes() {
+        BitSet minutes = new BitSet(AppointmentSlotIndex.MINUTES_PER_DAY);
+        minutes.set(OPENING_TIME.toSecondOfDay() / 60, CLOSING_TIME.toSecondOfDay() / 60);
+        minutes.clear(BREAK_START.toSecondOfDay() / 60, BREAK_END.toSecondOfDay() / 60);
+        return minutes;
+    }
+
     // Obtener todos los turnos (considerar filtrar por barberia si es admin)
+    @Transactional(readOnly = true)
     public List<AppointmentResponse> getAllAppointments() {
-        return appointmentRepository.findAll()
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return appointmentRepository.findAllResponses();
     }
 
-    // NUEVO: Obtener turnos por barberia
-    public List<AppointmentResponse> getAppointmentsByBarbershop(Long barbershopId) {
-        return appointmentRepository.findByBarbershopId(barbershopId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    // Obtener turnos por barberia, filtrados por fecha/estado y paginados por keyset
+    @Transactional(readOnly = true)
+    public AppointmentPageResponse getAppointmentsByBarbershop(Long barbershopId,
+                                                               LocalDate from,
+                                                               LocalDate to,
+                                                               List<AppointmentStatus> statuses,
+                                                               String cursor,
+                                                               int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : LocalDate.EPOCH.atStartOfDay();
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LocalDate.of(9999, 12, 31).atStartOfDay();
+        List<AppointmentStatus> statusFilter = statuses != null && !statuses.isEmpty()
+                ? statuses
+                : List.of(AppointmentStatus.values());
+
+        // Sin cursor se empieza desde el inicio del rango
+        LocalDateTime afterStart = fromTime;
+        Long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterStart = LocalDateTime.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
+
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<AppointmentResponse> rows = appointmentRepository.findPageByBarbershopId(
+                barbershopId, fromTime, toTime, statusFilter, afterStart, afterId,
+                PageRequest.of(0, pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new AppointmentPageResponse(rows, null);
+        }
+
+        List<AppointmentResponse> items = rows.subList(0, pageSize);
+        AppointmentResponse last = items.get(pageSize - 1);
+        String nextCursor = encodeCursor(LocalDateTime.of(last.getDate(), last.getStartTime()), last.getId());
+        return new AppointmentPageResponse(new ArrayList<>(items), nextCursor);
+    }
+
+    private static String encodeCursor(LocalDateTime startTime, Long id) {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
     }
 
     // NUEVO: Obtener turnos de un usuario
+    @Transactional(readOnly = true)
     public List<AppointmentResponse> getMyAppointments(Long userId) {
-        return appointmentRepository.findByUserId(userId)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return appointmentRepository.findResponsesByUserId(userId);
+    }
+
+    // Motivo por el que el horario no se puede reservar, o null si está dentro del horario de atención
+    private static String scheduleProblem(LocalDateTime start, LocalDateTime end) {
+        LocalTime startTime = start.toLocalTime();
+        LocalTime endTime = end.toLocalTime();
+
+        if (startTime.isBefore(OPENING_TIME) || endTime.isAfter(CLOSING_TIME)
+                || !end.toLocalDate().equals(start.toLocalDate())) {
+            return "Horario fuera de atención (09:00 - 20:00)";
+        }
+
+        boolean overlapsBreak = startTime.isBefore(BREAK_END) && endTime.isAfter(BREAK_START);
+        if (overlapsBreak) {
+            return "Horario no disponible (descanso 13:00 - 16:00)";
+        }
+        return null;
+    }
+
+    private static boolean overlapsAny(List<Appointment> appointments, LocalDateTime start, LocalDateTime end) {
+        for (Appointment other : appointments) {
+            if (other.getStartTime().isBefore(end) && other.getEndTime().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // MODIFICADO: mapToResponse con los nuevos campos
@@ -169,6 +452,8 @@ public class AppointmentService {
         appointment.setStatus(AppointmentStatus.CANCELLED);
 
         appointmentRepository.save(appointment);
+        slotIndex.track(appointment);
+        reminderScheduler.track(appointment);
     }
 
     public void updateStatus(Long id, UpdateStatusRequest request) {
@@ -182,7 +467,17 @@ public class AppointmentService {
             throw new RuntimeException("Estado inválido");
         }
 
-        appointmentRepository.save(appointment);
+        // Reactivar un turno cancelado puede chocar con otro turno tomado mientras tanto
+        try {
+            appointmentRepository.save(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (isOverlapViolation(e)) {
+                throw new AppointmentConflictException("El profesional ya tiene un turno en ese horario");
+            }
+            throw e;
+        }
+        slotIndex.track(appointment);
+        reminderScheduler.track(appointment);
     }
 
     @Transactional
@@ -195,5 +490,8 @@ public class AppointmentService {
         throw new RuntimeException("No se pueden eliminar turnos completados");
     }
     appointmentRepository.delete(appointment);
+    slotIndex.untrack(appointment);
+    reminderScheduler.untrack(appointment);
+    ownershipCache.evictAppointment(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,344 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.AppointmentSlot;
+import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.repository.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Índice en memoria de los turnos activos por (peluquería, profesional, día).
+ *
+ * Cada día se representa como un bitmap de minutos ocupados, que se carga desde la BD
+ * la primera vez que se consulta y luego se mantiene al crear, cancelar, eliminar o
+ * cambiar el estado de un turno. Es local a cada instancia: los cambios hechos en otra
+ * instancia no llegan, así que cada día vence a los pocos minutos y, antes de rechazar
+ * una reserva por superposición, se vuelve a leer de la BD. La BD sigue siendo la
+ * fuente de verdad y la última validación ante reservas concurrentes.
+ *
+ * La consulta a la BD corre fuera de todo lock del mapa: el día se publica vacío y
+ * "cargando", y los cambios confirmados mientras tanto se anotan y se aplican encima
+ * de lo leído. Quien consulta un día que se está cargando espera esa misma carga.
+ */
+@Component
+public class AppointmentSlotIndex {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final AppointmentRepository appointmentRepository;
+    private final ConcurrentMap<DayKey, DaySchedule> days = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public AppointmentSlotIndex(AppointmentRepository appointmentRepository,
+                                @Value("${app.appointments.slot-index.ttl-seconds:120}") long ttlSeconds) {
+        this.appointmentRepository = appointmentRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Indica si el profesional tiene algún turno activo que se superponga con el rango
+     */
+    public boolean overlaps(Long barbershopId, Long professionalId,
+                            LocalDateTime start, LocalDateTime end) {
+        DayKey key = new DayKey(barbershopId, professionalId, start.toLocalDate());
+        int from = minuteOf(start);
+        int to = endMinuteOf(start, end);
+        if (schedule(key).isFree(from, to)) {
+            return false;
+        }
+
+        // El turno que ocupa el horario pudo cancelarse en otra instancia: se confirma contra la BD
+        return !reload(key).isFree(from, to);
+    }
+
+    /**
+     * Copia del bitmap de minutos ocupados del profesional en un día (bit i = minuto i)
+     */
+    public BitSet occupiedMinutes(Long barbershopId, Long professionalId, LocalDate date) {
+        return schedule(new DayKey(barbershopId, professionalId, date)).snapshot();
+    }
+
+    /**
+     * Reserva el horario de un turno recién insertado. Si la transacción hace rollback
+     * la reserva se libera. Devuelve false si otro turno ocupó el horario mientras tanto.
+     */
+    public boolean reserve(Appointment appointment) {
+        DayKey key = keyOf(appointment);
+        Long id = appointment.getId();
+        int from = minuteOf(appointment.getStartTime());
+        int to = endMinuteOf(appointment.getStartTime(), appointment.getEndTime());
+
+        DaySchedule loaded = schedule(key);
+        if (!loaded.tryAdd(id, from, to)) {
+            // Antes de rechazar se relee el día (el insert ya pasó la restricción de la BD)
+            loaded = reload(key);
+            if (!loaded.tryAdd(id, from, to)) {
+                return false;
+            }
+        }
+        DaySchedule schedule = loaded;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        schedule.remove(id);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Sincroniza el índice con el estado actual del turno una vez confirmada la transacción:
+     * los turnos cancelados liberan su horario y el resto lo ocupan.
+     */
+    public void track(Appointment appointment) {
+        DayKey key = keyOf(appointment);
+        Long id = appointment.getId();
+        boolean active = appointment.getStatus() != AppointmentStatus.CANCELLED;
+        int from = minuteOf(appointment.getStartTime());
+        int to = endMinuteOf(appointment.getStartTime(), appointment.getEndTime());
+
+        // Si el día no está cargado no hay nada que actualizar: se leerá de la BD. Si se
+        // está cargando, el cambio queda anotado y se aplica sobre lo que devuelva la consulta
+        afterCommit(() -> {
+            DaySchedule schedule = days.get(key);
+            if (schedule == null) {
+                return;
+            }
+            if (active) {
+                schedule.put(id, from, to);
+            } else {
+                schedule.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Quita un turno eliminado del índice una vez confirmada la transacción
+     */
+    public void untrack(Appointment appointment) {
+        DayKey key = keyOf(appointment);
+        Long id = appointment.getId();
+
+        afterCommit(() -> {
+            DaySchedule schedule = days.get(key);
+            if (schedule != null) {
+                schedule.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Descarta los días vencidos que nadie volvió a consultar
+     */
+    @Scheduled(fixedDelayString = "${app.appointments.slot-index.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        // Un día que se está cargando no se descarta: su cargador lo va a publicar
+        days.values().removeIf(schedule -> schedule.isLoaded() && isExpired(schedule, now));
+    }
+
+    private DaySchedule schedule(DayKey key) {
+        DaySchedule current = days.get(key);
+        if (current != null && !isExpired(current, System.nanoTime())) {
+            return current.await();
+        }
+        return replace(key, current);
+    }
+
+    // Relee el día aunque no haya vencido (si otro ya lo está releyendo, espera esa carga)
+    private DaySchedule reload(DayKey key) {
+        DaySchedule current = days.get(key);
+        if (current != null && !current.isLoaded()) {
+            return current.await();
+        }
+        return replace(key, current);
+    }
+
+    /**
+     * Publica un día nuevo en lugar de stale (null si no había) y lo carga. Si otro
+     * thread ya lo reemplazó, se usa el suyo.
+     */
+    private DaySchedule replace(DayKey key, DaySchedule stale) {
+        DaySchedule fresh = new DaySchedule();
+        boolean installed = stale == null
+                ? days.putIfAbsent(key, fresh) == null
+                : days.replace(key, stale, fresh);
+        if (!installed) {
+            DaySchedule winner = days.get(key);
+            return winner != null ? winner.await() : schedule(key);
+        }
+
+        try {
+            LocalDateTime dayStart = key.date().atStartOfDay();
+            fresh.complete(appointmentRepository.findActiveSlotsInRange(
+                    key.professionalId(), key.barbershopId(), dayStart, dayStart.plusDays(1)));
+        } catch (RuntimeException e) {
+            // Sin carga no hay índice: el próximo que consulte vuelve a intentar
+            days.remove(key, fresh);
+            fresh.fail(e);
+            throw e;
+        }
+        return fresh;
+    }
+
+    private boolean isExpired(DaySchedule schedule, long now) {
+        return now - schedule.createdAt >= ttlNanos;
+    }
+
+    private static DayKey keyOf(Appointment appointment) {
+        return new DayKey(
+                appointment.getBarbershop().getId(),
+                appointment.getProfessional().getId(),
+                appointment.getStartTime().toLocalDate());
+    }
+
+    static int minuteOf(LocalDateTime dateTime) {
+        return dateTime.getHour() * 60 + dateTime.getMinute();
+    }
+
+    static int endMinuteOf(LocalDateTime start, LocalDateTime end) {
+        // Un turno que termina a medianoche o después ocupa el resto del día
+        if (!end.toLocalDate().equals(start.toLocalDate())) {
+            return MINUTES_PER_DAY;
+        }
+        int minute = minuteOf(end);
+        return end.getSecond() > 0 || end.getNano() > 0 ? minute + 1 : minute;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    record DayKey(Long barbershopId, Long professionalId, LocalDate date) {
+    }
+
+    /**
+     * Minutos ocupados de un profesional en un día. Los rangos por turno permiten
+     * reconstruir el bitmap al liberar un turno sin afectar a los demás.
+     *
+     * Nace "cargando": hasta que llega el resultado de la BD los cambios se anotan en
+     * pending y los lectores esperan en ready.
+     */
+    static final class DaySchedule {
+
+        private final long createdAt = System.nanoTime();
+        private final CompletableFuture<DaySchedule> ready = new CompletableFuture<>();
+        private final BitSet occupied = new BitSet(MINUTES_PER_DAY);
+        private final Map<Long, int[]> ranges = new HashMap<>();
+        private List<Runnable> pending = new ArrayList<>();
+
+        boolean isLoaded() {
+            return ready.isDone();
+        }
+
+        DaySchedule await() {
+            try {
+                return ready.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        void complete(List<AppointmentSlot> slots) {
+            synchronized (this) {
+                for (AppointmentSlot slot : slots) {
+                    ranges.put(slot.appointmentId(), new int[] {
+                            minuteOf(slot.startTime()), endMinuteOf(slot.startTime(), slot.endTime()) });
+                }
+                rebuild();
+                // Lo confirmado durante la consulta va encima: puede que ella no lo haya visto
+                List<Runnable> changes = pending;
+                pending = null;
+                changes.forEach(Runnable::run);
+            }
+            ready.complete(this);
+        }
+
+        void fail(RuntimeException error) {
+            ready.completeExceptionally(error);
+        }
+
+        synchronized boolean isFree(int from, int to) {
+            int next = occupied.nextSetBit(from);
+            return next < 0 || next >= to;
+        }
+
+        synchronized boolean tryAdd(Long id, int from, int to) {
+            // El propio turno puede venir ya cargado desde la BD dentro de su transacción
+            if (ranges.containsKey(id)) {
+                return true;
+            }
+            if (!isFree(from, to)) {
+                return false;
+            }
+            ranges.put(id, new int[] { from, to });
+            occupied.set(from, to);
+            return true;
+        }
+
+        synchronized void put(Long id, int from, int to) {
+            if (pending != null) {
+                pending.add(() -> put(id, from, to));
+                return;
+            }
+            int[] previous = ranges.put(id, new int[] { from, to });
+            if (previous != null) {
+                rebuild();
+            } else {
+                occupied.set(from, to);
+            }
+        }
+
+        synchronized void remove(Long id) {
+            if (pending != null) {
+                pending.add(() -> remove(id));
+                return;
+            }
+            if (ranges.remove(id) != null) {
+                rebuild();
+            }
+        }
+
+        synchronized BitSet snapshot() {
+            return (BitSet) occupied.clone();
+        }
+
+        private void rebuild() {
+            occupied.clear();
+            for (int[] range : ranges.values()) {
+                occupied.set(range[0], range[1]);
+            }
+        }
+    }
+}
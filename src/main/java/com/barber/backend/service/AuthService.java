@@ -1,84 +1,87 @@
 package com.barber.backend.service;
 
 import com.barber.backend.config.JwtUtil;
+import com.barber.backend.config.VerificationTokenUtil;
+import com.barber.backend.config.VerificationTokenUtil.VerificationClaims;
 import com.barber.backend.dto.AuthResponse;
 import com.barber.backend.dto.LoginRequest;
 import com.barber.backend.dto.RegisterRequest;
 import com.barber.backend.model.Role;
 import com.barber.backend.model.User;
-import com.barber.backend.model.VerificationToken;
 import com.barber.backend.repository.UserRepository;
-import com.barber.backend.repository.VerificationTokenRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.time.LocalDateTime;
-import java.util.UUID;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
     private final EmailService emailService; // NUEVO
-    private final VerificationTokenRepository tokenRepository; // NUEVO
+    private final VerificationTokenUtil verificationTokenUtil;
+    private final TransactionTemplate transactionTemplate;
 
     public AuthService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder,
+                       PasswordHasher passwordHasher,
                        JwtUtil jwtUtil,
                        EmailService emailService,
-                       VerificationTokenRepository tokenRepository) {
+                       VerificationTokenUtil verificationTokenUtil,
+                       TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtUtil = jwtUtil;
         this.emailService = emailService;
-        this.tokenRepository = tokenRepository;
+        this.verificationTokenUtil = verificationTokenUtil;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * El hash se calcula antes de abrir la transacción: mientras espera en la cola del
+     * PasswordHasher la request no retiene una conexión del pool.
+     */
     public void register(RegisterRequest request) {
+        // Chequeo previo para no gastar un hash en un email ya registrado
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new RuntimeException("El email ya está registrado");
         }
 
-        // Crear usuario
-        User user = new User();
-        user.setEmail(request.getEmail());
-        user.setName(request.getName());
-        user.setPhone(request.getPhone());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRole(Role.CLIENT);
-        user.setEmailVerified(false); // NUEVO: Por defecto no verificado
+        String passwordHash = passwordHasher.encode(request.getPassword());
 
-        User savedUser = userRepository.save(user);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new RuntimeException("El email ya está registrado");
+            }
 
-        // NUEVO: Generar token de verificación
-        String token = UUID.randomUUID().toString();
-        LocalDateTime expiryDate = LocalDateTime.now().plusHours(24); // Expira en 24 horas
+            // Crear usuario
+            User user = new User();
+            user.setEmail(request.getEmail());
+            user.setName(request.getName());
+            user.setPhone(request.getPhone());
+            user.setPassword(passwordHash);
+            user.setRole(Role.CLIENT);
+            user.setEmailVerified(false); // NUEVO: Por defecto no verificado
 
-        VerificationToken verificationToken = new VerificationToken(token, savedUser, expiryDate);
-        tokenRepository.save(verificationToken);
+            User savedUser = userRepository.save(user);
 
-        // NUEVO: Enviar email de verificación
-        try {
+            // Token firmado: no se guarda, lleva el id y el nonce del usuario
+            String token = verificationTokenUtil.generateToken(savedUser.getId(), savedUser.getVerificationNonce());
+
+            // NUEVO: Encolar email de verificación (se envía después del commit)
             emailService.sendVerificationEmail(
                 savedUser.getEmail(),
                 savedUser.getName(),
                 token
             );
-        } catch (Exception e) {
-            // Log del error pero no fallar el registro
-            System.err.println("Error al enviar email de verificación: " + e.getMessage());
-        }
+        });
     }
 
     public AuthResponse login(LoginRequest request) {
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Credenciales inválidas"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Credenciales inválidas");
         }
 
@@ -87,32 +90,31 @@ public class AuthService {
             throw new RuntimeException("Debes verificar tu email antes de iniciar sesión. Revisa tu correo.");
         }
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        // Si cambió el costo de BCrypt, se aprovecha la contraseña en claro para rehacer el hash
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            rehashPassword(user, request.getPassword());
+        }
+
+        String token = jwtUtil.generateToken(user);
         return new AuthResponse(token, user.getRole().name());
     }
 
     // NUEVO: Verificar email
     @Transactional
     public void verifyEmail(String token) {
-        VerificationToken verificationToken = tokenRepository.findByToken(token)
-                .orElseThrow(() -> new RuntimeException("Token de verificación inválido"));
-
-        if (verificationToken.isUsed()) {
-            throw new RuntimeException("Este token ya fue utilizado");
+        VerificationClaims claims = verificationTokenUtil.parse(token);
+        if (claims == null) {
+            throw new RuntimeException("Token de verificación inválido");
         }
 
-        if (verificationToken.isExpired()) {
+        if (claims.isExpired()) {
             throw new RuntimeException("El token de verificación ha expirado");
         }
 
-        // Marcar usuario como verificado
-        User user = verificationToken.getUser();
-        user.setEmailVerified(true);
-        userRepository.save(user);
-
-        // Marcar token como usado
-        verificationToken.setUsed(true);
-        tokenRepository.save(verificationToken);
+        // Un solo UPDATE: falla si el token ya se usó o fue reemplazado por un reenvío
+        if (userRepository.markEmailVerified(claims.userId(), claims.nonce()) == 0) {
+            throw new RuntimeException("Este token ya fue utilizado");
+        }
     }
 
     // NUEVO: Reenviar email de verificación
@@ -125,15 +127,9 @@ public class AuthService {
             throw new RuntimeException("Tu email ya está verificado");
         }
 
-        // Eliminar tokens anteriores
-        tokenRepository.deleteByUserId(user.getId());
-
-        // Generar nuevo token
-        String token = UUID.randomUUID().toString();
-        LocalDateTime expiryDate = LocalDateTime.now().plusHours(24);
-
-        VerificationToken verificationToken = new VerificationToken(token, user, expiryDate);
-        tokenRepository.save(verificationToken);
+        // Nuevo nonce: los tokens enviados antes dejan de servir
+        user.setVerificationNonce(user.getVerificationNonce() + 1);
+        String token = verificationTokenUtil.generateToken(user.getId(), user.getVerificationNonce());
 
         // Enviar email
         emailService.sendVerificationEmail(
@@ -142,4 +138,13 @@ public class AuthService {
             token
         );
     }
-}
\ No newline at end of file
+
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            userRepository.updatePassword(user.getId(), passwordHasher.encode(rawPassword));
+        } catch (RuntimeException e) {
+            // No es motivo para rechazar el login: el hash viejo sigue siendo válido y se
+            // reintenta en el próximo (PasswordHasher ya cuenta los rechazos por saturación)
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package com.barber.backend.service;
 
+import com.barber.backend.config.CacheConfig;
 import com.barber.backend.dto.BarbershopConfigRequest;
 import com.barber.backend.dto.BarbershopDTO;
 import com.barber.backend.dto.BarbershopListDTO;
+import com.barber.backend.dto.BookingContextResponse;
+import com.barber.backend.dto.ProfessionalResponse;
+import com.barber.backend.dto.ServiceResponse;
+import com.barber.backend.exception.CatalogUpdateConflictException;
 import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Professional;
+import com.barber.backend.model.ServiceEntity;
 import com.barber.backend.repository.BarbershopRepository;
+import com.barber.backend.repository.ProfessionalRepository;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,14 +27,18 @@ import java.util.stream.Collectors;
 public class BarbershopService {
     
     private final BarbershopRepository barbershopRepository;
+    private final ProfessionalRepository professionalRepository;
     
     @Value("${app.base-url}")
     private String baseUrl; // ← ESTA variable se inyecta desde application.properties
     
-    public BarbershopService(BarbershopRepository barbershopRepository) {
+    public BarbershopService(BarbershopRepository barbershopRepository,
+                             ProfessionalRepository professionalRepository) {
         this.barbershopRepository = barbershopRepository;
+        this.professionalRepository = professionalRepository;
     }
     
+    @Cacheable(CacheConfig.BARBERSHOPS)
     @Transactional(readOnly = true)
     public List<BarbershopListDTO> getAllBarbershops() {
         return barbershopRepository.findAll().stream()
@@ -43,6 +58,7 @@ public class BarbershopService {
         return convertToDTO(barbershop);
     }
     
+    @Cacheable(CacheConfig.BARBERSHOP_BY_SLUG)
     @Transactional(readOnly = true)
     public BarbershopDTO getBarbershopBySlug(String slug) {
         Barbershop barbershop = barbershopRepository.findBySlug(slug)
@@ -51,7 +67,32 @@ public class BarbershopService {
         return convertToDTO(barbershop);
     }
 
+    /**
+     * Peluquería, servicios activos y profesionales activos para la página de reservas.
+     * Son dos consultas: la peluquería con sus servicios (fetch join) y los profesionales.
+     */
+    @Cacheable(CacheConfig.BOOKING_CONTEXT)
+    @Transactional(readOnly = true)
+    public BookingContextResponse getBookingContext(String slug) {
+        Barbershop barbershop = barbershopRepository.findBySlugWithServices(slug)
+                .orElseThrow(() -> new RuntimeException("Peluquería no encontrada"));
+
+        List<ServiceResponse> services = barbershop.getServices().stream()
+                .filter(service -> Boolean.TRUE.equals(service.getActive()))
+                .map(service -> toServiceResponse(service, barbershop))
+                .collect(Collectors.toList());
+
+        List<ProfessionalResponse> professionals = professionalRepository
+                .findByBarbershopIdAndActiveTrue(barbershop.getId()).stream()
+                .map(professional -> toProfessionalResponse(professional, barbershop))
+                .collect(Collectors.toList());
+
+        return new BookingContextResponse(convertToDTO(barbershop), services, professionals);
+    }
+
     // NUEVO: Configurar Mercado Pago para una barbershop
+    @CacheEvict(cacheNames = { CacheConfig.BARBERSHOPS, CacheConfig.BARBERSHOP_BY_SLUG, CacheConfig.BOOKING_CONTEXT },
+                allEntries = true)
     @Transactional
     public void configureMercadoPago(Long barbershopId, BarbershopConfigRequest request) {
         Barbershop barbershop = barbershopRepository.findById(barbershopId)
@@ -61,7 +102,13 @@ public class BarbershopService {
         barbershop.setMercadoPagoPublicKey(request.getMercadoPagoPublicKey());
         barbershop.setPaymentEnabled(request.getPaymentEnabled());
 
-        barbershopRepository.save(barbershop);
+        // El flush dentro del método hace que un conflicto de versión se detecte acá y no en el commit
+        try {
+            barbershopRepository.saveAndFlush(barbershop);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new CatalogUpdateConflictException(
+                    "La peluquería fue modificada por otra persona, recargá e intentá de nuevo");
+        }
     }
     
     // ESTE MÉTODO va aquí en BarbershopService, NO en BarbershopDTO
@@ -76,6 +123,35 @@ public class BarbershopService {
         dto.setLink(baseUrl + "/barberia/" + barbershop.getSlug()); // ← Aquí se usa baseUrl
         dto.setPaymentEnabled(barbershop.getPaymentEnabled());
         dto.setMercadoPagoPublicKey(barbershop.getMercadoPagoPublicKey());
+        dto.setVersion(barbershop.getVersion());
         return dto;
     }
+
+    // La peluquería ya está cargada: no se navega la relación lazy de cada elemento
+    private ServiceResponse toServiceResponse(ServiceEntity service, Barbershop barbershop) {
+        return new ServiceResponse(
+                service.getId(),
+                service.getName(),
+                service.getDescription(),
+                service.getPrice(),
+                service.getDuration(),
+                service.getActive(),
+                barbershop.getId(),
+                barbershop.getName(),
+                service.getVersion()
+        );
+    }
+
+    private ProfessionalResponse toProfessionalResponse(Professional professional, Barbershop barbershop) {
+        return new ProfessionalResponse(
+                professional.getId(),
+                professional.getName(),
+                professional.getSpecialty(),
+                professional.getPhone(),
+                professional.getActive(),
+                barbershop.getId(),
+                barbershop.getName(),
+                professional.getVersion()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,174 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.EmailOutboxMessage;
+import com.barber.backend.model.EmailStatus;
+import com.barber.backend.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Vacía la cola de emails (email_outbox) con un pool de virtual threads.
+ *
+ * Cada ciclo toma un lote de mensajes vencidos, los marca con un "lease" para que
+ * no los tome otra instancia y los envía en paralelo. Los fallos se reintentan con
+ * backoff exponencial hasta agotar los intentos.
+ */
+@Component
+public class EmailDispatcher {
+
+    // Tiempo que un mensaje tomado queda reservado por si la instancia se cae a mitad del envío
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer sendTimer;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${app.mail.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    public EmailDispatcher(EmailOutboxRepository outboxRepository,
+                           JavaMailSender mailSender,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+
+        this.sentCounter = meterRegistry.counter("email.outbox.sent");
+        this.retryCounter = meterRegistry.counter("email.outbox.retries");
+        this.failedCounter = meterRegistry.counter("email.outbox.failed");
+        this.sendTimer = meterRegistry.timer("email.outbox.send.duration");
+        Gauge.builder("email.outbox.pending", outboxRepository,
+                        repository -> repository.countByStatus(EmailStatus.PENDING))
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void drain() {
+        List<EmailOutboxMessage> batch;
+        do {
+            batch = claimBatch();
+
+            List<Future<?>> sends = new ArrayList<>(batch.size());
+            for (EmailOutboxMessage message : batch) {
+                sends.add(executor.submit(() -> deliver(message)));
+            }
+            for (Future<?> send : sends) {
+                try {
+                    send.get();
+                } catch (Exception e) {
+                    // deliver ya registra el error en el mensaje
+                }
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> due = outboxRepository.lockDueMessages(now, batchSize);
+            for (EmailOutboxMessage message : due) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(now.plus(LEASE));
+            }
+            return due;
+        });
+    }
+
+    private void deliver(EmailOutboxMessage message) {
+        try {
+            sendTimer.recordCallable(() -> {
+                send(message);
+                return null;
+            });
+            markSent(message.getId());
+            sentCounter.increment();
+        } catch (Exception e) {
+            markFailedAttempt(message, e);
+        }
+    }
+
+    private void send(EmailOutboxMessage message) throws Exception {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        // El cuerpo es un único HTML sin adjuntos: no hace falta un mensaje multipart
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+
+        helper.setFrom(fromEmail);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getBody(), true);
+
+        mailSender.send(mimeMessage);
+    }
+
+    private void markSent(Long id) {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.findById(id).ifPresent(message -> {
+                    message.setStatus(EmailStatus.SENT);
+                    message.setSentAt(LocalDateTime.now());
+                    message.setLastError(null);
+                }));
+    }
+
+    private void markFailedAttempt(EmailOutboxMessage claimed, Exception error) {
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        String lastError = reason.length() > 1000 ? reason.substring(0, 1000) : reason;
+
+        transactionTemplate.executeWithoutResult(status ->
+                outboxRepository.findById(claimed.getId()).ifPresent(message -> {
+                    message.setLastError(lastError);
+                    if (message.getAttempts() >= maxAttempts) {
+                        message.setStatus(EmailStatus.FAILED);
+                        failedCounter.increment();
+                    } else {
+                        message.setNextAttemptAt(LocalDateTime.now().plus(backoff(message.getAttempts())));
+                        retryCounter.increment();
+                    }
+                }));
+
+        System.err.println("Error al enviar email a " + claimed.getRecipient() + ": " + reason);
+    }
+
+    // 30s, 1m, 2m, 4m... con tope de una hora
+    private static Duration backoff(int attempts) {
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
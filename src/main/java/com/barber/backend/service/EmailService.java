@@ -1,151 +1,70 @@
 package com.barber.backend.service;
 
+import com.barber.backend.model.EmailOutboxMessage;
+import com.barber.backend.repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
+/**
+ * Arma los emails y los deja en la cola (email_outbox) dentro de la transacción
+ * del llamador. El envío SMTP lo hace EmailDispatcher en segundo plano, así que
+ * un servidor de correo lento no retiene conexiones ni threads de request.
+ */
 @Service
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    // Plantillas compiladas una sola vez al arrancar (ver templates/email)
+    private final EmailTemplate verificationTemplate =
+            EmailTemplate.load("templates/email/verification.html", "userName", "verificationUrl");
+    private final EmailTemplate confirmationTemplate =
+            EmailTemplate.load("templates/email/appointment-confirmation.html",
+                    "userName", "barbershopName", "date", "time");
+    private final EmailTemplate reminderTemplate =
+            EmailTemplate.load("templates/email/appointment-reminder.html",
+                    "userName", "when", "barbershopName", "professionalName", "serviceName", "date", "time");
+
+    private final EmailOutboxRepository outboxRepository;
     
     @Value("${app.base-url}")
     private String baseUrl;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
     }
 
+    @Transactional
     public void sendVerificationEmail(String toEmail, String userName, String token) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Verifica tu cuenta - Barbería");
+        String verificationUrl = baseUrl + "/verify-email?token=" + token;
 
-            String verificationUrl = baseUrl + "/verify-email?token=" + token;
+        String htmlContent = verificationTemplate.render(userName, verificationUrl);
 
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <style>
-                        body { font-family: Arial, sans-serif; line-height: 1.6; }
-                        .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                        .header { background-color: #4CAF50; color: white; padding: 20px; text-align: center; }
-                        .content { padding: 20px; background-color: #f9f9f9; }
-                        .button { 
-                            display: inline-block; 
-                            padding: 12px 30px; 
-                            background-color: #4CAF50; 
-                            color: white; 
-                            text-decoration: none; 
-                            border-radius: 5px; 
-                            margin: 20px 0;
-                        }
-                        .footer { text-align: center; padding: 20px; color: #666; font-size: 12px; }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="header">
-                            <h1>¡Bienvenido a la Barbería!</h1>
-                        </div>
-                        <div class="content">
-                            <h2>Hola %s,</h2>
-                            <p>Gracias por registrarte en nuestro sistema de reservas.</p>
-                            <p>Para completar tu registro, por favor verifica tu correo electrónico haciendo clic en el botón de abajo:</p>
-                            <div style="text-align: center;">
-                                <a href="%s" class="button">Verificar mi cuenta</a>
-                            </div>
-                            <p>Si el botón no funciona, copia y pega este enlace en tu navegador:</p>
-                            <p style="word-break: break-all; color: #4CAF50;">%s</p>
-                            <p><strong>Este enlace expirará en 24 horas.</strong></p>
-                            <p>Si no creaste esta cuenta, puedes ignorar este correo.</p>
-                        </div>
-                        <div class="footer">
-                            <p>© 2026 Barbería - Sistema de Reservas</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """.formatted(userName, verificationUrl, verificationUrl);
-
-            helper.setText(htmlContent, true);
-            mailSender.send(message);
-            
-        } catch (MessagingException e) {
-            throw new RuntimeException("Error al enviar el email de verificación", e);
-        }
+        enqueue(toEmail, "Verifica tu cuenta - Barbería", htmlContent);
     }
 
+    @Transactional
     public void sendAppointmentConfirmation(String toEmail, String userName, 
                                            String barbershopName, String date, String time) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        String htmlContent = confirmationTemplate.render(userName, barbershopName, date, time);
+
+        enqueue(toEmail, "Confirmación de Turno - " + barbershopName, htmlContent);
+    }
 
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Confirmación de Turno - " + barbershopName);
+    @Transactional
+    public void sendAppointmentReminder(String toEmail, String userName, String when,
+                                        String barbershopName, String professionalName,
+                                        String serviceName, String date, String time) {
+        String htmlContent = reminderTemplate.render(
+                userName, when, barbershopName, professionalName, serviceName, date, time);
 
-            String htmlContent = """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <style>
-                        body { font-family: Arial, sans-serif; line-height: 1.6; }
-                        .container { max-width: 600px; margin: 0 auto; padding: 20px; }
-                        .header { background-color: #2196F3; color: white; padding: 20px; text-align: center; }
-                        .content { padding: 20px; background-color: #f9f9f9; }
-                        .appointment-details { 
-                            background-color: white; 
-                            padding: 15px; 
-                            border-left: 4px solid #2196F3; 
-                            margin: 20px 0; 
-                        }
-                        .footer { text-align: center; padding: 20px; color: #666; font-size: 12px; }
-                    </style>
-                </head>
-                <body>
-                    <div class="container">
-                        <div class="header">
-                            <h1>✅ Turno Confirmado</h1>
-                        </div>
-                        <div class="content">
-                            <h2>Hola %s,</h2>
-                            <p>Tu turno ha sido confirmado exitosamente.</p>
-                            <div class="appointment-details">
-                                <h3>Detalles del Turno:</h3>
-                                <p><strong>Peluquería:</strong> %s</p>
-                                <p><strong>Fecha:</strong> %s</p>
-                                <p><strong>Hora:</strong> %s</p>
-                            </div>
-                            <p>Te esperamos! Si necesitas cancelar o modificar tu turno, puedes hacerlo desde tu cuenta.</p>
-                        </div>
-                        <div class="footer">
-                            <p>© 2026 Barbería - Sistema de Reservas</p>
-                        </div>
-                    </div>
-                </body>
-                </html>
-                """.formatted(userName, barbershopName, date, time);
+        enqueue(toEmail, "Recordatorio de Turno - " + barbershopName, htmlContent);
+    }
 
-            helper.setText(htmlContent, true);
-            mailSender.send(message);
-            
-        } catch (MessagingException e) {
-            throw new RuntimeException("Error al enviar confirmación de turno", e);
-        }
+    private void enqueue(String toEmail, String subject, String htmlContent) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(toEmail);
+        message.setSubject(subject);
+        message.setBody(htmlContent);
+        outboxRepository.save(message);
     }
 }
\ No newline at end of file
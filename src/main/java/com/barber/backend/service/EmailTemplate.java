@@ -0,0 +1,111 @@
+package com.barber.backend.service;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plantilla HTML precompilada: el texto se parte una sola vez en tramos fijos y
+ * marcadores {{nombre}}, y cada envío solo concatena esos tramos con los valores
+ * (escapados como HTML) en un buffer del tamaño justo.
+ */
+final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String[] chunks;      // chunks.length == slots.length + 1
+    private final int[] slots;          // índice del parámetro de cada marcador
+    private final int staticLength;
+
+    private EmailTemplate(String[] chunks, int[] slots) {
+        this.chunks = chunks;
+        this.slots = slots;
+        int length = 0;
+        for (String chunk : chunks) {
+            length += chunk.length();
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Carga y compila una plantilla del classpath. Los valores de render se pasan en el
+     * mismo orden que parameterNames; un marcador desconocido es un error de arranque.
+     */
+    static EmailTemplate load(String path, String... parameterNames) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8), parameterNames);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la plantilla " + path, e);
+        }
+    }
+
+    static EmailTemplate compile(String source, String... parameterNames) {
+        List<String> names = Arrays.asList(parameterNames);
+        List<String> chunks = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int position = 0;
+        int open;
+        while ((open = source.indexOf(OPEN, position)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Marcador sin cerrar en la posición " + open);
+            }
+
+            String name = source.substring(open + OPEN.length(), close).trim();
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Marcador desconocido: " + name);
+            }
+
+            chunks.add(source.substring(position, open));
+            slots.add(slot);
+            position = close + CLOSE.length();
+        }
+        chunks.add(source.substring(position));
+
+        return new EmailTemplate(
+                chunks.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    String render(String... values) {
+        int length = staticLength;
+        for (int slot : slots) {
+            String value = values[slot];
+            length += value != null ? value.length() + 16 : 0;
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(chunks[i]);
+            appendEscaped(out, values[slots[i]]);
+        }
+        out.append(chunks[chunks.length - 1]);
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.barber.backend.service;
+
+import com.mercadopago.client.payment.PaymentClient;
+import com.mercadopago.client.preference.PreferenceClient;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.net.MPDefaultHttpClient;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clientes de Mercado Pago por barberia.
+ *
+ * Cada barberia tiene su propio pool de conexiones HTTP y su access token viaja en
+ * las MPRequestOptions de cada request, así que nunca se usa la configuración global
+ * del SDK (MercadoPagoConfig.setAccessToken) y los pagos de distintas barberias
+ * pueden ir en paralelo sin pisarse las credenciales.
+ */
+@Component
+public class MercadoPagoClientRegistry {
+
+    private final ConcurrentMap<Long, TenantClient> clients = new ConcurrentHashMap<>();
+
+    @Value("${app.payments.mercadopago.max-connections-per-tenant:20}")
+    private int maxConnectionsPerTenant;
+
+    @Value("${app.payments.mercadopago.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.payments.mercadopago.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @FunctionalInterface
+    public interface TenantCall<T> {
+        T execute(TenantClient client) throws Exception;
+    }
+
+    /**
+     * Ejecuta una llamada con el cliente de la barberia. Mientras dura, el cliente no se
+     * cierra aunque otra request cambie el token: el viejo se retira y se cierra cuando
+     * termina su última llamada.
+     */
+    public <T> T execute(Long barbershopId, String accessToken, TenantCall<T> call) throws Exception {
+        while (true) {
+            TenantClient client = get(barbershopId, accessToken);
+            // Si justo lo retiraron, se toma el nuevo
+            if (!client.acquire()) {
+                continue;
+            }
+            try {
+                return call.execute(client);
+            } finally {
+                client.release();
+            }
+        }
+    }
+
+    /**
+     * Cliente de la barberia. Si el token cambió (nueva configuración) se crea uno nuevo.
+     */
+    TenantClient get(Long barbershopId, String accessToken) {
+        TenantClient current = clients.get(barbershopId);
+        if (current != null && current.accessToken().equals(accessToken)) {
+            return current;
+        }
+
+        return clients.compute(barbershopId, (id, existing) -> {
+            if (existing != null && existing.accessToken().equals(accessToken)) {
+                return existing;
+            }
+            if (existing != null) {
+                existing.retire();
+            }
+            return create(accessToken);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.values().forEach(TenantClient::retire);
+        clients.clear();
+    }
+
+    // Punto de extensión para los tests (p. ej. apuntar a un servidor local)
+    protected HttpClientBuilder httpClientBuilder() {
+        return HttpClients.custom();
+    }
+
+    private TenantClient create(String accessToken) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnectionsPerTenant);
+        // Todas las llamadas van al mismo host (api.mercadopago.com)
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerTenant);
+
+        // Sin timeouts una pasarela lenta deja threads colgados indefinidamente
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setConnectionRequestTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .build();
+
+        CloseableHttpClient httpClient = httpClientBuilder()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        MPDefaultHttpClient mpHttpClient = new TenantHttpClient(httpClient);
+
+        // El SDK arma la configuración de cada request con estas opciones
+        MPRequestOptions options = MPRequestOptions.builder()
+                .accessToken(accessToken)
+                .connectionTimeout(connectTimeoutMs)
+                .connectionRequestTimeout(connectTimeoutMs)
+                .socketTimeout(readTimeoutMs)
+                .build();
+
+        return new TenantClient(
+                accessToken,
+                options,
+                new PreferenceClient(mpHttpClient),
+                new PaymentClient(mpHttpClient),
+                httpClient);
+    }
+
+    // El constructor que recibe el HttpClient es protegido en el SDK
+    private static final class TenantHttpClient extends MPDefaultHttpClient {
+
+        TenantHttpClient(HttpClient httpClient) {
+            super(httpClient);
+        }
+    }
+
+    public static final class TenantClient {
+
+        private final String accessToken;
+        private final MPRequestOptions options;
+        private final PreferenceClient preferenceClient;
+        private final PaymentClient paymentClient;
+        private final CloseableHttpClient httpClient;
+
+        // Llamadas en curso; el pool se cierra cuando está retirado y llega a cero
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+
+        TenantClient(String accessToken,
+                     MPRequestOptions options,
+                     PreferenceClient preferenceClient,
+                     PaymentClient paymentClient,
+                     CloseableHttpClient httpClient) {
+            this.accessToken = accessToken;
+            this.options = options;
+            this.preferenceClient = preferenceClient;
+            this.paymentClient = paymentClient;
+            this.httpClient = httpClient;
+        }
+
+        public String accessToken() { return accessToken; }
+        public MPRequestOptions options() { return options; }
+        public PreferenceClient preferenceClient() { return preferenceClient; }
+        public PaymentClient paymentClient() { return paymentClient; }
+
+        boolean acquire() {
+            inFlight.incrementAndGet();
+            if (retired) {
+                release();
+                return false;
+            }
+            return true;
+        }
+
+        void release() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                close();
+            }
+        }
+
+        void retire() {
+            retired = true;
+            if (inFlight.get() == 0) {
+                close();
+            }
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el cliente de Mercado Pago: " + e.getMessage());
+            }
+        }
+    }
+}
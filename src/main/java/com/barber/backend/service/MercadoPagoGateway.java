@@ -0,0 +1,91 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.GatewayPreference;
+import com.mercadopago.client.preference.PreferenceRequest;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.net.MPResultsResourcesPage;
+import com.mercadopago.net.MPSearchRequest;
+import com.mercadopago.resources.payment.Payment;
+import com.mercadopago.resources.preference.Preference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "mercadopago", matchIfMissing = true)
+public class MercadoPagoGateway implements PaymentGateway {
+
+    private final MercadoPagoClientRegistry clientRegistry;
+    private final PaymentGatewayGuard guard;
+
+    public MercadoPagoGateway(MercadoPagoClientRegistry clientRegistry,
+                              PaymentGatewayGuard guard) {
+        this.clientRegistry = clientRegistry;
+        this.guard = guard;
+    }
+
+    @Override
+    public GatewayPreference createPreference(Long barbershopId, String accessToken, PreferenceRequest request) {
+        return execute(barbershopId, accessToken, client -> {
+            Preference preference = client.preferenceClient().create(request, client.options());
+            return new GatewayPreference(preference.getId(), preference.getInitPoint());
+        });
+    }
+
+    @Override
+    public Optional<GatewayPayment> findLatestPayment(Long barbershopId, String accessToken,
+                                                      String externalReference) {
+        Map<String, Object> filters = new HashMap<>();
+        filters.put("external_reference", externalReference);
+        filters.put("sort", "date_created");
+        filters.put("criteria", "desc");
+        MPSearchRequest search = MPSearchRequest.builder()
+                .filters(filters)
+                .limit(1)
+                .offset(0)
+                .build();
+
+        return execute(barbershopId, accessToken, client -> {
+            MPResultsResourcesPage<Payment> page = client.paymentClient().search(search, client.options());
+            return page.getResults().stream()
+                    .findFirst()
+                    .map(MercadoPagoGateway::toGatewayPayment);
+        });
+    }
+
+    @Override
+    public GatewayPayment getPayment(Long barbershopId, String accessToken, Long paymentId) {
+        return execute(barbershopId, accessToken, client ->
+                toGatewayPayment(client.paymentClient().get(paymentId, client.options())));
+    }
+
+    // Pasa por el circuit breaker y el bulkhead, y traduce los errores del SDK
+    private <T> T execute(Long barbershopId, String accessToken,
+                          MercadoPagoClientRegistry.TenantCall<T> call) {
+        try {
+            return guard.call(barbershopId, () -> clientRegistry.execute(barbershopId, accessToken, call));
+        } catch (MPApiException e) {
+            throw new RuntimeException("Error de Mercado Pago: " + e.getMessage());
+        } catch (MPException e) {
+            throw new RuntimeException("Error al conectar con Mercado Pago: " + e.getMessage());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error al conectar con Mercado Pago: " + e.getMessage());
+        }
+    }
+
+    private static GatewayPayment toGatewayPayment(Payment payment) {
+        return new GatewayPayment(
+                payment.getId(),
+                payment.getStatus(),
+                payment.getExternalReference(),
+                payment.getPaymentTypeId()
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.GatewayPreference;
+import com.mercadopago.client.preference.PreferenceRequest;
+
+import java.util.Optional;
+
+/**
+ * Acceso a la pasarela de pagos. En producción es Mercado Pago; con
+ * app.payments.gateway=stub se usa una implementación local sin red.
+ * Todas las llamadas reciben las credenciales de la barberia.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Crea la preferencia de pago (checkout) en la cuenta de la barberia
+     */
+    GatewayPreference createPreference(Long barbershopId, String accessToken, PreferenceRequest request);
+
+    /**
+     * Consulta el estado real de un pago con las credenciales de la barberia
+     */
+    GatewayPayment getPayment(Long barbershopId, String accessToken, Long paymentId);
+
+    /**
+     * Último pago hecho para una referencia externa (id del turno), si existe
+     */
+    Optional<GatewayPayment> findLatestPayment(Long barbershopId, String accessToken, String externalReference);
+}
@@ -0,0 +1,175 @@
+package com.barber.backend.service;
+
+import com.barber.backend.exception.PaymentGatewayUnavailableException;
+import com.mercadopago.exceptions.MPApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protege las llamadas a Mercado Pago con un circuit breaker y un bulkhead por barberia.
+ *
+ * Circuit breaker: cada barberia usa su propio access token, así que cada una tiene su
+ * circuito. Tras N fallas seguidas de la pasarela (red, timeout o 5xx) se abre y las
+ * llamadas de esa barberia fallan al instante con 503. Pasado el tiempo de apertura deja pasar
+ * una sola llamada de prueba (half-open): si sale bien se cierra, si no vuelve a abrirse.
+ * Los errores 4xx no cuentan: la pasarela respondió.
+ *
+ * Bulkhead: cada barberia tiene un máximo de llamadas simultáneas, para que una
+ * barberia con mucho tráfico no ocupe todos los threads.
+ */
+@Component
+public class PaymentGatewayGuard {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    @FunctionalInterface
+    public interface GatewayCall<T> {
+        T execute() throws Exception;
+    }
+
+    private final ConcurrentMap<Long, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, CircuitBreaker> circuits = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter failureCounter;
+    private final Counter circuitRejectedCounter;
+    private final Counter bulkheadRejectedCounter;
+
+    @Value("${app.payments.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.payments.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${app.payments.bulkhead.max-concurrent-per-tenant:4}")
+    private int maxConcurrentPerTenant;
+
+    // Cuánto espera una llamada por un lugar libre antes de rechazarse
+    @Value("${app.payments.bulkhead.max-wait-ms:200}")
+    private long maxWaitMs;
+
+    public PaymentGatewayGuard(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.failureCounter = meterRegistry.counter("payments.gateway.failures");
+        this.circuitRejectedCounter = meterRegistry.counter("payments.gateway.rejected", "reason", "circuit_open");
+        this.bulkheadRejectedCounter = meterRegistry.counter("payments.gateway.rejected", "reason", "bulkhead_full");
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        // Cantidad de barberias con el circuito abierto o en half-open
+        Gauge.builder("payments.gateway.circuit.open", circuits, PaymentGatewayGuard::countNotClosed)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Long barbershopId, GatewayCall<T> call) throws Exception {
+        CircuitBreaker circuit = circuits.computeIfAbsent(barbershopId, id -> new CircuitBreaker());
+        boolean probe = circuit.acquirePermission();
+
+        Semaphore bulkhead = bulkheads.computeIfAbsent(barbershopId, id -> new Semaphore(maxConcurrentPerTenant));
+        if (!bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+            if (probe) {
+                circuit.releaseProbe();
+            }
+            bulkheadRejectedCounter.increment();
+            throw new PaymentGatewayUnavailableException(
+                    "Hay demasiados pagos en curso para esta peluquería, intentá de nuevo en unos segundos");
+        }
+
+        try {
+            T result = call.execute();
+            circuit.onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isOutage(e)) {
+                failureCounter.increment();
+                circuit.onFailure();
+            } else {
+                circuit.onSuccess();
+            }
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    State currentState(Long barbershopId) {
+        CircuitBreaker circuit = circuits.get(barbershopId);
+        return circuit != null ? circuit.currentState() : State.CLOSED;
+    }
+
+    private static double countNotClosed(ConcurrentMap<Long, CircuitBreaker> circuits) {
+        return circuits.values().stream()
+                .filter(circuit -> circuit.currentState() != State.CLOSED)
+                .count();
+    }
+
+    // Red, timeout o error del servidor de Mercado Pago; un 4xx es un error de la request
+    private static boolean isOutage(Exception e) {
+        if (e instanceof MPApiException apiException) {
+            return apiException.getStatusCode() >= 500;
+        }
+        return true;
+    }
+
+    /**
+     * Estado del circuito de una barberia
+     */
+    private final class CircuitBreaker {
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probeInFlight;
+
+        synchronized State currentState() {
+            return state;
+        }
+
+        // Devuelve true si la llamada es la prueba del estado half-open
+        synchronized boolean acquirePermission() {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.CLOSED) {
+                return false;
+            }
+            if (state == State.HALF_OPEN && !probeInFlight) {
+                probeInFlight = true;
+                return true;
+            }
+
+            circuitRejectedCounter.increment();
+            throw new PaymentGatewayUnavailableException(
+                    "Los pagos online no están disponibles en este momento, intentá más tarde");
+        }
+
+        synchronized void releaseProbe() {
+            probeInFlight = false;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            probeInFlight = false;
+            state = State.CLOSED;
+        }
+
+        synchronized void onFailure() {
+            probeInFlight = false;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+            }
+        }
+    }
+}
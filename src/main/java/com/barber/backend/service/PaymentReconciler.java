@@ -0,0 +1,157 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.StalePayment;
+import com.barber.backend.model.PaymentStatus;
+import com.barber.backend.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Concilia los pagos que quedaron en PENDING o IN_PROCESS porque se perdió un webhook.
+ *
+ * Recorre los pagos sin resolver en lotes, consulta la pasarela en paralelo (con un
+ * límite de llamadas simultáneas) y aplica los cambios de cada lote en una sola
+ * transacción con updates agrupados.
+ */
+@Component
+public class PaymentReconciler {
+
+    private static final List<PaymentStatus> UNRESOLVED = List.of(PaymentStatus.PENDING, PaymentStatus.IN_PROCESS);
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final PaymentGateway paymentGateway;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter checkedCounter;
+    private final Counter updatedCounter;
+    private final Counter errorCounter;
+    private final Timer runTimer;
+
+    @Value("${app.payments.reconcile.batch-size:100}")
+    private int batchSize;
+
+    // Consultas simultáneas a la pasarela
+    @Value("${app.payments.reconcile.parallelism:8}")
+    private int parallelism;
+
+    // Consultas simultáneas por barberia; se limita al bulkhead para no ocupar todos sus lugares
+    @Value("${app.payments.reconcile.parallelism-per-tenant:2}")
+    private int parallelismPerTenant;
+
+    @Value("${app.payments.bulkhead.max-concurrent-per-tenant:4}")
+    private int bulkheadPerTenant;
+
+    // Antigüedad mínima: los pagos recientes todavía pueden recibir su webhook
+    @Value("${app.payments.reconcile.stale-after-minutes:15}")
+    private long staleAfterMinutes;
+
+    // Antigüedad máxima: los pagos más viejos ya no se consultan
+    @Value("${app.payments.reconcile.max-age-days:30}")
+    private long maxAgeDays;
+
+    public PaymentReconciler(PaymentRepository paymentRepository,
+                             PaymentService paymentService,
+                             PaymentGateway paymentGateway,
+                             MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        this.paymentGateway = paymentGateway;
+
+        this.checkedCounter = meterRegistry.counter("payments.reconcile.checked");
+        this.updatedCounter = meterRegistry.counter("payments.reconcile.updated");
+        this.errorCounter = meterRegistry.counter("payments.reconcile.errors");
+        this.runTimer = meterRegistry.timer("payments.reconcile.run.duration");
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.reconcile.interval-ms:300000}",
+               initialDelayString = "${app.payments.reconcile.initial-delay-ms:60000}")
+    public void reconcile() {
+        runTimer.record(this::reconcileAll);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void reconcileAll() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(staleAfterMinutes);
+        LocalDateTime createdAfter = now.minusDays(maxAgeDays);
+
+        long afterId = 0;
+        List<StalePayment> batch;
+        do {
+            batch = paymentRepository.findStalePayments(
+                    UNRESOLVED, createdBefore, createdAfter, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Map<Long, GatewayPayment> results = fetchFromGateway(batch);
+            if (!results.isEmpty()) {
+                updatedCounter.increment(paymentService.applyReconciledPayments(results, UNRESOLVED));
+            }
+
+            afterId = batch.get(batch.size() - 1).paymentId();
+        } while (batch.size() == batchSize);
+    }
+
+    private Map<Long, GatewayPayment> fetchFromGateway(List<StalePayment> batch) {
+        Map<Long, GatewayPayment> results = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(parallelism);
+        // Con un lugar libre en el bulkhead para los checkouts en curso de esa barberia
+        int perTenant = Math.max(1, Math.min(parallelismPerTenant, bulkheadPerTenant - 1));
+        Map<Long, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+
+        List<Future<?>> lookups = new ArrayList<>(batch.size());
+        for (StalePayment stale : batch) {
+            Semaphore tenant = tenantPermits.computeIfAbsent(stale.barbershopId(), id -> new Semaphore(perTenant));
+            lookups.add(executor.submit(() -> {
+                // Primero el de la barberia: esperar por él no retiene un lugar global
+                tenant.acquire();
+                permits.acquire();
+                try {
+                    paymentGateway.findLatestPayment(stale.barbershopId(), stale.accessToken(),
+                                    String.valueOf(stale.appointmentId()))
+                            .ifPresent(payment -> results.put(stale.paymentId(), payment));
+                    checkedCounter.increment();
+                } catch (Exception e) {
+                    errorCounter.increment();
+                    System.err.println("Error al conciliar el pago " + stale.paymentId() + ": " + e.getMessage());
+                } finally {
+                    permits.release();
+                    tenant.release();
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> lookup : lookups) {
+            try {
+                lookup.get();
+            } catch (Exception e) {
+                // cada consulta ya registra su error
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,45 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.PaymentStatus;
+import com.barber.backend.repository.PaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Libera las reservas de checkout huérfanas: pagos PENDING que nunca recibieron el id
+ * de Mercado Pago porque la instancia se cayó entre la reserva y la respuesta de la
+ * pasarela. Sin esto el turno quedaría bloqueado con "Ya existe un pago pendiente".
+ *
+ * Igual que cuando falla la pasarela, una reserva que creó el pago se borra y una que
+ * reutilizó un pago anterior (por ejemplo rechazado) lo devuelve a su estado previo.
+ */
+@Component
+public class PaymentReservationSweeper {
+
+    private final PaymentRepository paymentRepository;
+    private final Counter releasedCounter;
+
+    // Una reserva más vieja que esto ya no puede estar esperando a la pasarela
+    @Value("${app.payments.reservation-timeout-minutes:10}")
+    private long reservationTimeoutMinutes;
+
+    public PaymentReservationSweeper(PaymentRepository paymentRepository, MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.releasedCounter = meterRegistry.counter("payments.reservations.released");
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.reservation-sweep-interval-ms:60000}")
+    @Transactional
+    public void releaseOrphanedReservations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(reservationTimeoutMinutes);
+        int released = paymentRepository.restoreOrphanedReservations(PaymentStatus.PENDING, cutoff)
+                + paymentRepository.deleteOrphanedReservations(PaymentStatus.PENDING, cutoff);
+        releasedCounter.increment(released);
+    }
+}
@@ -1,26 +1,28 @@
 package com.barber.backend.service;
 
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.GatewayPreference;
 import com.barber.backend.dto.PaymentResponse;
 import com.barber.backend.model.*;
 import com.barber.backend.repository.AppointmentRepository;
+import com.barber.backend.repository.BarbershopRepository;
 import com.barber.backend.repository.PaymentRepository;
-import com.mercadopago.MercadoPagoConfig;
 import com.mercadopago.client.preference.PreferenceBackUrlsRequest;
-import com.mercadopago.client.preference.PreferenceClient;
 import com.mercadopago.client.preference.PreferenceItemRequest;
 import com.mercadopago.client.preference.PreferenceRequest;
-import com.mercadopago.exceptions.MPApiException;
-import com.mercadopago.exceptions.MPException;
-import com.mercadopago.resources.preference.Preference;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PaymentService {
@@ -28,21 +30,68 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final AppointmentRepository appointmentRepository;
     private final EmailService emailService;
+    private final AppointmentSlotIndex slotIndex;
+    private final AppointmentReminderScheduler reminderScheduler;
+    private final BarbershopRepository barbershopRepository;
+    private final PaymentGateway paymentGateway;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.base-url}")
     private String baseUrl;
 
+    @Value("${app.payments.webhook-url}")
+    private String webhookUrl;
+
     public PaymentService(PaymentRepository paymentRepository,
                          AppointmentRepository appointmentRepository,
-                         EmailService emailService) {
+                         EmailService emailService,
+                         AppointmentSlotIndex slotIndex,
+                         AppointmentReminderScheduler reminderScheduler,
+                         BarbershopRepository barbershopRepository,
+                         PaymentGateway paymentGateway,
+                         TransactionTemplate transactionTemplate) {
         this.paymentRepository = paymentRepository;
         this.appointmentRepository = appointmentRepository;
         this.emailService = emailService;
+        this.slotIndex = slotIndex;
+        this.reminderScheduler = reminderScheduler;
+        this.barbershopRepository = barbershopRepository;
+        this.paymentGateway = paymentGateway;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Crea el checkout en dos fases para no tener una conexión de BD tomada durante
+     * la llamada HTTP: se reserva el pago (PENDING, sin id de MP) y se confirma, se
+     * llama a la pasarela fuera de toda transacción y después se completa el pago.
+     * Si el proceso muere a mitad, PaymentReservationSweeper libera la reserva.
+     */
     public PaymentResponse createPaymentPreference(Long appointmentId, Long userId) {
-        
+        // Fase 1: reservar
+        CheckoutReservation reservation;
+        try {
+            reservation = transactionTemplate.execute(status -> reservePayment(appointmentId, userId));
+        } catch (DataIntegrityViolationException e) {
+            // Otra request reservó el pago del mismo turno al mismo tiempo (clave única por turno)
+            throw new RuntimeException("Ya existe un pago pendiente para este turno");
+        }
+
+        // Fase 2: pasarela, sin transacción
+        GatewayPreference preference;
+        try {
+            preference = paymentGateway.createPreference(
+                    reservation.barbershopId(), reservation.accessToken(), reservation.request());
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> releaseReservation(reservation));
+            throw e;
+        }
+
+        // Fase 3: completar
+        return transactionTemplate.execute(status ->
+                completePayment(reservation.paymentId(), preference));
+    }
+
+    private CheckoutReservation reservePayment(Long appointmentId, Long userId) {
         // Validar que el turno existe y pertenece al usuario
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new RuntimeException("Turno no encontrado"));
@@ -64,102 +113,194 @@ public class PaymentService {
             throw new RuntimeException("Esta peluquería no tiene pagos online habilitados");
         }
 
-        // Validar que no tenga un pago pendiente o aprobado
-        paymentRepository.findByAppointmentId(appointmentId).ifPresent(existingPayment -> {
+        // Validar que no tenga un pago pendiente o aprobado (bloqueando el pago existente).
+        // Solo un pago rechazado se puede reintentar: uno en revisión (IN_PROCESS) todavía
+        // puede acreditarse y uno reembolsado conserva su historial
+        Payment existingPayment = paymentRepository.lockByAppointmentId(appointmentId).orElse(null);
+        if (existingPayment != null) {
             if (existingPayment.getStatus() == PaymentStatus.APPROVED) {
                 throw new RuntimeException("Este turno ya fue pagado");
             }
-            if (existingPayment.getStatus() == PaymentStatus.PENDING) {
+            if (existingPayment.getStatus() == PaymentStatus.PENDING
+                    || existingPayment.getStatus() == PaymentStatus.IN_PROCESS) {
                 throw new RuntimeException("Ya existe un pago pendiente para este turno");
             }
-        });
+            if (existingPayment.getStatus() != PaymentStatus.REJECTED) {
+                throw new RuntimeException("El pago de este turno no se puede reintentar");
+            }
+        }
 
-        try {
-            // CRÍTICO: Configurar el Access Token de la barberia específica
-            MercadoPagoConfig.setAccessToken(barbershop.getMercadoPagoAccessToken());
-
-            // Crear item de Mercado Pago
-            PreferenceItemRequest itemRequest = PreferenceItemRequest.builder()
-                    .title(appointment.getService().getName() + " - " + barbershop.getName())
-                    .description("Turno con " + appointment.getProfessional().getName() + 
-                               " el " + formatDate(appointment.getStartTime()))
-                    .quantity(1)
-                    .unitPrice(BigDecimal.valueOf(appointment.getService().getPrice()))
-                    .currencyId("ARS")
-                    .build();
-
-            List<PreferenceItemRequest> items = new ArrayList<>();
-            items.add(itemRequest);
-
-            // URLs de retorno
-            PreferenceBackUrlsRequest backUrls = PreferenceBackUrlsRequest.builder()
-                    .success(baseUrl + "/payment-success?appointmentId=" + appointmentId)
-                    .failure(baseUrl + "/payment-failure?appointmentId=" + appointmentId)
-                    .pending(baseUrl + "/payment-pending?appointmentId=" + appointmentId)
-                    .build();
-
-            // Crear preferencia de pago
-            PreferenceRequest preferenceRequest = PreferenceRequest.builder()
-                    .items(items)
-                    .backUrls(backUrls)
-                    .autoReturn("approved")
-                    .externalReference(String.valueOf(appointmentId))
-                    .notificationUrl(baseUrl + "/api/payments/webhook") // Webhook
-                    .statementDescriptor(barbershop.getName()) // Aparece en el resumen de la tarjeta
-                    .payer(com.mercadopago.client.preference.PreferencePayerRequest.builder()
-                            .email(appointment.getUser().getEmail())
-                            .name(appointment.getUser().getName())
-                            .build())
-                    .build();
-
-            PreferenceClient client = new PreferenceClient();
-            Preference preference = client.create(preferenceRequest);
-
-            // Guardar pago en la BD
-            Payment payment = new Payment();
-            payment.setAppointment(appointment);
-            payment.setMercadoPagoId(preference.getId());
-            payment.setAmount(appointment.getService().getPrice());
-            payment.setStatus(PaymentStatus.PENDING);
-            payment.setCheckoutUrl(preference.getInitPoint());
-            payment.setPayerEmail(appointment.getUser().getEmail());
-
-            Payment savedPayment = paymentRepository.save(payment);
-
-            // Marcar turno como requiere pago
-            appointment.setRequiresPayment(true);
-            appointmentRepository.save(appointment);
+        // Crear item de Mercado Pago
+        PreferenceItemRequest itemRequest = PreferenceItemRequest.builder()
+                .title(appointment.getService().getName() + " - " + barbershop.getName())
+                .description("Turno con " + appointment.getProfessional().getName() + 
+                           " el " + formatDate(appointment.getStartTime()))
+                .quantity(1)
+                .unitPrice(BigDecimal.valueOf(appointment.getService().getPrice()))
+                .currencyId("ARS")
+                .build();
+
+        List<PreferenceItemRequest> items = new ArrayList<>();
+        items.add(itemRequest);
+
+        // URLs de retorno
+        PreferenceBackUrlsRequest backUrls = PreferenceBackUrlsRequest.builder()
+                .success(baseUrl + "/payment-success?appointmentId=" + appointmentId)
+                .failure(baseUrl + "/payment-failure?appointmentId=" + appointmentId)
+                .pending(baseUrl + "/payment-pending?appointmentId=" + appointmentId)
+                .build();
+
+        // Crear preferencia de pago
+        PreferenceRequest preferenceRequest = PreferenceRequest.builder()
+                .items(items)
+                .backUrls(backUrls)
+                .autoReturn("approved")
+                .externalReference(String.valueOf(appointmentId))
+                // La barberia viaja en la URL: el webhook la necesita para consultar el pago
+                .notificationUrl(webhookUrl + "?barbershopId=" + barbershop.getId())
+                .statementDescriptor(barbershop.getName()) // Aparece en el resumen de la tarjeta
+                .payer(com.mercadopago.client.preference.PreferencePayerRequest.builder()
+                        .email(appointment.getUser().getEmail())
+                        .name(appointment.getUser().getName())
+                        .build())
+                .build();
+
+        // Reservar el pago. Un turno tiene un solo pago: si hubo uno rechazado se reutiliza
+        Payment payment = existingPayment != null ? existingPayment : new Payment();
+        PaymentStatus previousStatus = existingPayment != null ? existingPayment.getStatus() : null;
+
+        payment.setAppointment(appointment);
+        payment.setMercadoPagoId(null); // se completa en la fase 3
+        payment.setCheckoutUrl(null);
+        payment.setAmount(appointment.getService().getPrice());
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setReservedFromStatus(previousStatus); // para que el sweeper pueda restaurarlo
+        payment.setPayerEmail(appointment.getUser().getEmail());
+        payment.setCreatedAt(LocalDateTime.now());
+
+        Payment reserved = paymentRepository.save(payment);
+
+        return new CheckoutReservation(
+                reserved.getId(),
+                barbershop.getId(),
+                barbershop.getMercadoPagoAccessToken(),
+                preferenceRequest,
+                previousStatus
+        );
+    }
 
-            return new PaymentResponse(
-                    savedPayment.getId(),
-                    appointment.getId(),
-                    preference.getId(),
-                    savedPayment.getAmount(),
-                    savedPayment.getStatus(),
-                    preference.getInitPoint(),
-                    savedPayment.getCreatedAt()
-            );
+    private PaymentResponse completePayment(Long paymentId, GatewayPreference preference) {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new RuntimeException("Reserva de pago no encontrada"));
+
+        payment.setMercadoPagoId(preference.id());
+        payment.setCheckoutUrl(preference.initPoint());
+        payment.setReservedFromStatus(null);
+
+        // Marcar turno como requiere pago
+        Appointment appointment = payment.getAppointment();
+        appointment.setRequiresPayment(true);
+        appointmentRepository.save(appointment);
+
+        Payment savedPayment = paymentRepository.save(payment);
+
+        return new PaymentResponse(
+                savedPayment.getId(),
+                appointment.getId(),
+                preference.id(),
+                savedPayment.getAmount(),
+                savedPayment.getStatus(),
+                preference.initPoint(),
+                savedPayment.getCreatedAt()
+        );
+    }
+
+    // La pasarela falló: se borra la reserva o, si se reutilizó un pago, vuelve a su estado anterior
+    private void releaseReservation(CheckoutReservation reservation) {
+        paymentRepository.findById(reservation.paymentId()).ifPresent(payment -> {
+            if (reservation.previousStatus() == null) {
+                paymentRepository.delete(payment);
+            } else {
+                payment.setStatus(reservation.previousStatus());
+                payment.setReservedFromStatus(null);
+            }
+        });
+    }
 
-        } catch (MPApiException e) {
-            throw new RuntimeException("Error de Mercado Pago: " + e.getMessage());
-        } catch (MPException e) {
-            throw new RuntimeException("Error al conectar con Mercado Pago: " + e.getMessage());
+    /**
+     * Consulta el estado real de un pago en la pasarela y lo aplica al turno.
+     * La llamada a la pasarela queda fuera de la transacción.
+     */
+    public void syncPaymentFromGateway(Long barbershopId, Long paymentMPId) {
+        if (barbershopId == null) {
+            throw new RuntimeException("La notificación no indica la peluquería");
         }
+
+        String accessToken = barbershopRepository.findMercadoPagoAccessTokenById(barbershopId)
+                .orElseThrow(() -> new RuntimeException("Peluquería sin credenciales de Mercado Pago"));
+
+        GatewayPayment gatewayPayment = paymentGateway.getPayment(barbershopId, accessToken, paymentMPId);
+
+        transactionTemplate.executeWithoutResult(status ->
+                applyGatewayPayment(barbershopId, gatewayPayment));
     }
 
-    @Transactional
-    public void processWebhookNotification(Long paymentMPId, String status) {
-        
-        Payment payment = paymentRepository.findByMercadoPagoId(String.valueOf(paymentMPId))
+    private void applyGatewayPayment(Long barbershopId, GatewayPayment gatewayPayment) {
+        // external_reference es el id del turno (ver createPaymentPreference)
+        Long appointmentId;
+        try {
+            appointmentId = Long.valueOf(gatewayPayment.externalReference());
+        } catch (NumberFormatException e) {
+            System.err.println("Pago sin turno asociado: " + gatewayPayment.id());
+            return;
+        }
+
+        Payment payment = paymentRepository.lockByAppointmentId(appointmentId)
                 .orElse(null);
 
         if (payment == null) {
-            System.err.println("Pago no encontrado: " + paymentMPId);
+            System.err.println("Pago no encontrado: " + gatewayPayment.id());
             return;
         }
 
-        PaymentStatus newStatus = mapMercadoPagoStatus(status);
+        // El pago se consultó con las credenciales de esta barberia: el turno tiene que ser suyo
+        if (!payment.getAppointment().getBarbershop().getId().equals(barbershopId)) {
+            System.err.println("El pago " + gatewayPayment.id() + " no corresponde a la peluquería " + barbershopId);
+            return;
+        }
+
+        applyStatus(payment, gatewayPayment);
+    }
+
+    /**
+     * Aplica en una sola transacción los estados consultados por PaymentReconciler.
+     * Los pagos se bloquean en una única consulta y las actualizaciones salen agrupadas
+     * en lotes JDBC (hibernate.jdbc.batch_size). Devuelve cuántos pagos cambiaron.
+     */
+    @Transactional
+    public int applyReconciledPayments(Map<Long, GatewayPayment> gatewayPaymentsById,
+                                       Collection<PaymentStatus> unresolvedStatuses) {
+        int updated = 0;
+        // Solo los que siguen sin resolver: un resultado viejo no puede pisar un APPROVED del webhook
+        for (Payment payment : paymentRepository.lockAllByIdAndStatusIn(
+                gatewayPaymentsById.keySet(), unresolvedStatuses)) {
+            if (applyStatus(payment, gatewayPaymentsById.get(payment.getId()))) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private boolean applyStatus(Payment payment, GatewayPayment gatewayPayment) {
+        PaymentStatus newStatus = mapMercadoPagoStatus(gatewayPayment.status());
+
+        // Notificación repetida o sin cambios: no se reenvían emails ni se toca el turno
+        if (payment.getStatus() == newStatus) {
+            return false;
+        }
+
         payment.setStatus(newStatus);
+        payment.setPaymentMethod(gatewayPayment.paymentMethod());
 
         if (newStatus == PaymentStatus.APPROVED) {
             payment.setPaidAt(LocalDateTime.now());
@@ -168,22 +309,21 @@ public class PaymentService {
             Appointment appointment = payment.getAppointment();
             appointment.setStatus(AppointmentStatus.SCHEDULED);
             appointmentRepository.save(appointment);
-
-            // Enviar email de confirmación
-            try {
-                emailService.sendAppointmentConfirmation(
-                    appointment.getUser().getEmail(),
-                    appointment.getUser().getName(),
-                    appointment.getBarbershop().getName(),
-                    formatDate(appointment.getStartTime()),
-                    formatTime(appointment.getStartTime())
-                );
-            } catch (Exception e) {
-                System.err.println("Error al enviar email de confirmación: " + e.getMessage());
-            }
+            slotIndex.track(appointment);
+            reminderScheduler.track(appointment);
+
+            // Encolar email de confirmación (se envía después del commit)
+            emailService.sendAppointmentConfirmation(
+                appointment.getUser().getEmail(),
+                appointment.getUser().getName(),
+                appointment.getBarbershop().getName(),
+                formatDate(appointment.getStartTime()),
+                formatTime(appointment.getStartTime())
+            );
         }
 
         paymentRepository.save(payment);
+        return true;
     }
 
     @Transactional(readOnly = true)
@@ -210,6 +350,14 @@ public class PaymentService {
         );
     }
 
+    // Datos de la fase 1 que necesitan las fases siguientes
+    private record CheckoutReservation(Long paymentId,
+                                       Long barbershopId,
+                                       String accessToken,
+                                       PreferenceRequest request,
+                                       PaymentStatus previousStatus) {
+    }
+
     private PaymentStatus mapMercadoPagoStatus(String mpStatus) {
         return switch (mpStatus.toLowerCase()) {
             case "approved", "accredited" -> PaymentStatus.APPROVED;
@@ -0,0 +1,47 @@
+package com.barber.backend.service;
+
+import com.barber.backend.repository.WebhookNotificationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recepción de webhooks de Mercado Pago: registra cada notificación una sola vez
+ * en la cola (webhook_notifications) y responde enseguida. El procesamiento lo
+ * hace WebhookDispatcher en segundo plano.
+ *
+ * Los reintentos de Mercado Pago se descartan primero con un LRU en memoria y,
+ * si no está ahí (otra instancia, reinicio), con la clave única de la tabla.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private final WebhookNotificationRepository notificationRepository;
+    private final Cache<String, Boolean> recentNotifications;
+
+    public PaymentWebhookService(WebhookNotificationRepository notificationRepository,
+                                 @Value("${app.payments.webhook.dedup-cache-size:10000}") long dedupCacheSize) {
+        this.notificationRepository = notificationRepository;
+        this.recentNotifications = Caffeine.newBuilder()
+                .maximumSize(dedupCacheSize)
+                .build();
+    }
+
+    /**
+     * Encola la notificación. Devuelve false si ya se había recibido.
+     */
+    public boolean accept(String notificationId, String type, Long paymentId, Long barbershopId) {
+        if (recentNotifications.getIfPresent(notificationId) != null) {
+            return false;
+        }
+
+        int inserted = notificationRepository.insertIfAbsent(
+                notificationId, type, paymentId, barbershopId, LocalDateTime.now());
+        recentNotifications.put(notificationId, Boolean.TRUE);
+
+        return inserted > 0;
+    }
+}
@@ -1,11 +1,18 @@
 package com.barber.backend.service;
 
+import com.barber.backend.config.CacheConfig;
+import com.barber.backend.config.ResourceOwnershipCache;
 import com.barber.backend.dto.ProfessionalRequest;
 import com.barber.backend.dto.ProfessionalResponse;
+import com.barber.backend.exception.CatalogUpdateConflictException;
 import com.barber.backend.model.Barbershop;
 import com.barber.backend.model.Professional;
 import com.barber.backend.repository.BarbershopRepository;
 import com.barber.backend.repository.ProfessionalRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,13 +24,17 @@ public class ProfessionalService {
 
     private final ProfessionalRepository professionalRepository;
     private final BarbershopRepository barbershopRepository;
+    private final ResourceOwnershipCache ownershipCache;
 
     public ProfessionalService(ProfessionalRepository professionalRepository,
-                              BarbershopRepository barbershopRepository) {
+                              BarbershopRepository barbershopRepository,
+                              ResourceOwnershipCache ownershipCache) {
         this.professionalRepository = professionalRepository;
         this.barbershopRepository = barbershopRepository;
+        this.ownershipCache = ownershipCache;
     }
 
+    @Cacheable(CacheConfig.PROFESSIONALS_BY_BARBERSHOP)
     @Transactional(readOnly = true)
     public List<ProfessionalResponse> getProfessionalsByBarbershop(Long barbershopId) {
         return professionalRepository.findByBarbershopIdAndActiveTrue(barbershopId)
@@ -41,6 +52,10 @@ public class ProfessionalService {
                 .collect(Collectors.toList());
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PROFESSIONALS_BY_BARBERSHOP, key = "#request.barbershopId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKING_CONTEXT, allEntries = true)
+    })
     @Transactional
     public ProfessionalResponse createProfessional(ProfessionalRequest request) {
         Barbershop barbershop = barbershopRepository.findById(request.getBarbershopId())
@@ -57,6 +72,10 @@ public class ProfessionalService {
         return mapToResponse(saved);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PROFESSIONALS_BY_BARBERSHOP, key = "#result.barbershopId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKING_CONTEXT, allEntries = true)
+    })
     @Transactional
     public ProfessionalResponse updateProfessional(Long id, ProfessionalRequest request) {
         Professional professional = professionalRepository.findById(id)
@@ -70,10 +89,13 @@ public class ProfessionalService {
             professional.setActive(request.getActive());
         }
 
-        Professional updated = professionalRepository.save(professional);
+        // flush para que la respuesta lleve la versión ya incrementada
+        Professional updated = saveAndFlush(professional);
         return mapToResponse(updated);
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.PROFESSIONALS_BY_BARBERSHOP, CacheConfig.BOOKING_CONTEXT },
+                allEntries = true)
     @Transactional
     public void deleteProfessional(Long id) {
         Professional professional = professionalRepository.findById(id)
@@ -81,7 +103,18 @@ public class ProfessionalService {
         
         // Soft delete: marcar como inactivo en lugar de eliminar
         professional.setActive(false);
-        professionalRepository.save(professional);
+        saveAndFlush(professional);
+        ownershipCache.evictProfessional(id);
+    }
+
+    // El flush dentro del método hace que un conflicto de versión se detecte acá y no en el commit
+    private Professional saveAndFlush(Professional professional) {
+        try {
+            return professionalRepository.saveAndFlush(professional);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new CatalogUpdateConflictException(
+                    "El profesional fue modificado por otra persona, recargá e intentá de nuevo");
+        }
     }
 
     private ProfessionalResponse mapToResponse(Professional professional) {
@@ -92,7 +125,8 @@ public class ProfessionalService {
                 professional.getPhone(),
                 professional.getActive(),
                 professional.getBarbershop().getId(),
-                professional.getBarbershop().getName()
+                professional.getBarbershop().getName(),
+                professional.getVersion()
         );
     }
 }
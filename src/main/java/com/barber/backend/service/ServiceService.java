@@ -1,11 +1,18 @@
 package com.barber.backend.service;
 
+import com.barber.backend.config.CacheConfig;
+import com.barber.backend.config.ResourceOwnershipCache;
 import com.barber.backend.dto.ServiceRequest;
 import com.barber.backend.dto.ServiceResponse;
+import com.barber.backend.exception.CatalogUpdateConflictException;
 import com.barber.backend.model.Barbershop;
 import com.barber.backend.model.ServiceEntity;
 import com.barber.backend.repository.BarbershopRepository;
 import com.barber.backend.repository.ServiceRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,13 +24,17 @@ public class ServiceService {
 
     private final ServiceRepository serviceRepository;
     private final BarbershopRepository barbershopRepository;
+    private final ResourceOwnershipCache ownershipCache;
 
     public ServiceService(ServiceRepository serviceRepository,
-                         BarbershopRepository barbershopRepository) {
+                         BarbershopRepository barbershopRepository,
+                         ResourceOwnershipCache ownershipCache) {
         this.serviceRepository = serviceRepository;
         this.barbershopRepository = barbershopRepository;
+        this.ownershipCache = ownershipCache;
     }
 
+    @Cacheable(CacheConfig.SERVICES_BY_BARBERSHOP)
     @Transactional(readOnly = true)
     public List<ServiceResponse> getServicesByBarbershop(Long barbershopId) {
         return serviceRepository.findByBarbershopIdAndActiveTrue(barbershopId)
@@ -41,6 +52,10 @@ public class ServiceService {
                 .collect(Collectors.toList());
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_BARBERSHOP, key = "#request.barbershopId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKING_CONTEXT, allEntries = true)
+    })
     @Transactional
     public ServiceResponse createService(ServiceRequest request) {
         Barbershop barbershop = barbershopRepository.findById(request.getBarbershopId())
@@ -58,6 +73,10 @@ public class ServiceService {
         return mapToResponse(saved);
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SERVICES_BY_BARBERSHOP, key = "#result.barbershopId"),
+            @CacheEvict(cacheNames = CacheConfig.BOOKING_CONTEXT, allEntries = true)
+    })
     @Transactional
     public ServiceResponse updateService(Long id, ServiceRequest request) {
         ServiceEntity service = serviceRepository.findById(id)
@@ -72,10 +91,13 @@ public class ServiceService {
             service.setActive(request.getActive());
         }
 
-        ServiceEntity updated = serviceRepository.save(service);
+        // flush para que la respuesta lleve la versión ya incrementada
+        ServiceEntity updated = saveAndFlush(service);
         return mapToResponse(updated);
     }
 
+    @CacheEvict(cacheNames = { CacheConfig.SERVICES_BY_BARBERSHOP, CacheConfig.BOOKING_CONTEXT },
+                allEntries = true)
     @Transactional
     public void deleteService(Long id) {
         ServiceEntity service = serviceRepository.findById(id)
@@ -83,7 +105,18 @@ public class ServiceService {
         
         // Soft delete: marcar como inactivo en lugar de eliminar
         service.setActive(false);
-        serviceRepository.save(service);
+        saveAndFlush(service);
+        ownershipCache.evictService(id);
+    }
+
+    // El flush dentro del método hace que un conflicto de versión se detecte acá y no en el commit
+    private ServiceEntity saveAndFlush(ServiceEntity service) {
+        try {
+            return serviceRepository.saveAndFlush(service);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new CatalogUpdateConflictException(
+                    "El servicio fue modificado por otra persona, recargá e intentá de nuevo");
+        }
     }
 
     private ServiceResponse mapToResponse(ServiceEntity service) {
@@ -95,7 +128,8 @@ public class ServiceService {
                 service.getDuration(),
                 service.getActive(),
                 service.getBarbershop().getId(),
-                service.getBarbershop().getName()
+                service.getBarbershop().getName(),
+                service.getVersion()
         );
     }
 }
\ No newline at end of file
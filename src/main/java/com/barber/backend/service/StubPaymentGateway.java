@@ -0,0 +1,41 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.GatewayPreference;
+import com.mercadopago.client.preference.PreferenceRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Pasarela falsa para desarrollo local: no sale a la red. El checkout redirige
+ * directo a la URL de éxito, el id de pago se toma como id del turno y el estado
+ * se define con app.payments.stub.status.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "stub")
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${app.payments.stub.status:approved}")
+    private String status;
+
+    @Override
+    public GatewayPreference createPreference(Long barbershopId, String accessToken, PreferenceRequest request) {
+        return new GatewayPreference("stub-" + UUID.randomUUID(), request.getBackUrls().getSuccess());
+    }
+
+    @Override
+    public GatewayPayment getPayment(Long barbershopId, String accessToken, Long paymentId) {
+        return new GatewayPayment(paymentId, status, String.valueOf(paymentId), "account_money");
+    }
+
+    @Override
+    public Optional<GatewayPayment> findLatestPayment(Long barbershopId, String accessToken,
+                                                      String externalReference) {
+        return Optional.of(new GatewayPayment(
+                Long.valueOf(externalReference), status, externalReference, "account_money"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.WebhookNotification;
+import com.barber.backend.model.WebhookStatus;
+import com.barber.backend.repository.WebhookNotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Vacía la cola de webhooks (webhook_notifications) con un pool de virtual threads.
+ *
+ * Igual que EmailDispatcher: cada ciclo toma como mucho "workers" notificaciones
+ * vencidas, las reserva con un lease y sincroniza los pagos en paralelo. Los fallos
+ * se reintentan con backoff exponencial; al agotar los intentos quedan en FAILED.
+ */
+@Component
+public class WebhookDispatcher {
+
+    // Tiempo que una notificación tomada queda reservada por si la instancia se cae
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private final WebhookNotificationRepository notificationRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter processedCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Timer processTimer;
+
+    // Notificaciones procesadas en paralelo por ciclo
+    @Value("${app.payments.webhook.workers:8}")
+    private int workers;
+
+    @Value("${app.payments.webhook.max-attempts:8}")
+    private int maxAttempts;
+
+    public WebhookDispatcher(WebhookNotificationRepository notificationRepository,
+                             PaymentService paymentService,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.paymentService = paymentService;
+        this.transactionTemplate = transactionTemplate;
+
+        this.processedCounter = meterRegistry.counter("webhook.queue.processed");
+        this.retryCounter = meterRegistry.counter("webhook.queue.retries");
+        this.failedCounter = meterRegistry.counter("webhook.queue.failed");
+        this.processTimer = meterRegistry.timer("webhook.queue.process.duration");
+        Gauge.builder("webhook.queue.depth", notificationRepository,
+                        repository -> repository.countByStatus(WebhookStatus.RECEIVED))
+                .register(meterRegistry);
+        Gauge.builder("webhook.queue.oldest.age.seconds", notificationRepository,
+                        repository -> repository.findOldestReceivedAt(WebhookStatus.RECEIVED)
+                                .map(oldest -> (double) Duration.between(oldest, LocalDateTime.now()).toSeconds())
+                                .orElse(0.0))
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.webhook.poll-interval-ms:1000}")
+    public void drain() {
+        List<WebhookNotification> batch;
+        do {
+            batch = claimBatch();
+
+            List<Future<?>> tasks = new ArrayList<>(batch.size());
+            for (WebhookNotification notification : batch) {
+                tasks.add(executor.submit(() -> process(notification)));
+            }
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (Exception e) {
+                    // process ya registra el error en la notificación
+                }
+            }
+        } while (batch.size() == workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<WebhookNotification> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<WebhookNotification> due = notificationRepository.lockDueNotifications(now, workers);
+            for (WebhookNotification notification : due) {
+                notification.setAttempts(notification.getAttempts() + 1);
+                notification.setNextAttemptAt(now.plus(LEASE));
+            }
+            return due;
+        });
+    }
+
+    private void process(WebhookNotification notification) {
+        try {
+            processTimer.recordCallable(() -> {
+                paymentService.syncPaymentFromGateway(notification.getBarbershopId(), notification.getResourceId());
+                return null;
+            });
+            markProcessed(notification.getId());
+            processedCounter.increment();
+        } catch (Exception e) {
+            markFailedAttempt(notification, e);
+        }
+    }
+
+    private void markProcessed(Long id) {
+        transactionTemplate.executeWithoutResult(status ->
+                notificationRepository.findById(id).ifPresent(notification -> {
+                    notification.setStatus(WebhookStatus.PROCESSED);
+                    notification.setProcessedAt(LocalDateTime.now());
+                    notification.setLastError(null);
+                }));
+    }
+
+    private void markFailedAttempt(WebhookNotification claimed, Exception error) {
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        String lastError = reason.length() > 1000 ? reason.substring(0, 1000) : reason;
+
+        transactionTemplate.executeWithoutResult(status ->
+                notificationRepository.findById(claimed.getId()).ifPresent(notification -> {
+                    notification.setLastError(lastError);
+                    if (notification.getAttempts() >= maxAttempts) {
+                        notification.setStatus(WebhookStatus.FAILED);
+                        failedCounter.increment();
+                    } else {
+                        notification.setNextAttemptAt(LocalDateTime.now().plus(backoff(notification.getAttempts())));
+                        retryCounter.increment();
+                    }
+                }));
+
+        System.err.println("Error procesando webhook " + claimed.getNotificationId() + ": " + reason);
+    }
+
+    // 10s, 20s, 40s... con tope de media hora
+    private static Duration backoff(int attempts) {
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+}
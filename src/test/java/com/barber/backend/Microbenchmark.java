@@ -0,0 +1,50 @@
+package com.barber.backend;
+
+/**
+ * Medición simple de nanosegundos por operación para los tests @Tag("benchmark")
+ * (mvn test -Pbenchmark). Calienta el JIT con algunas rondas y se queda con la ronda
+ * más rápida, que es la menos afectada por GC y ruido de la máquina. No reemplaza a JMH,
+ * pero alcanza para comparar dos caminos o verificar un orden de magnitud.
+ */
+public final class Microbenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // Los resultados se publican acá para que el JIT no elimine la operación medida
+    private static volatile Object sink;
+
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    private Microbenchmark() {
+    }
+
+    public static double nanosPerOp(String name, int iterations, Operation operation) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            round(iterations, operation);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            best = Math.min(best, round(iterations, operation));
+        }
+
+        double perOp = (double) best / iterations;
+        System.out.printf("%-50s %10.1f ns/op%n", name, perOp);
+        return perOp;
+    }
+
+    private static long round(int iterations, Operation operation) throws Exception {
+        Object last = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            last = operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = last;
+        return elapsed;
+    }
+}
@@ -0,0 +1,131 @@
+package com.barber.backend.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cientos de reservas simultáneas del mismo horario contra PostgreSQL: la restricción de
+ * exclusión tiene que dejar pasar exactamente una. Requiere Docker; sin él se saltea.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentOverlapConstraintTest {
+
+    private static final int BOOKINGS = 300;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createSchema() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+
+        // Lo mínimo de las tablas que crea Hibernate para aplicar el esquema de la aplicación
+        jdbcTemplate.execute("""
+            CREATE TABLE appointments (
+                id bigint PRIMARY KEY,
+                professional_id bigint NOT NULL,
+                start_time timestamp NOT NULL,
+                end_time timestamp NOT NULL,
+                status varchar(20) NOT NULL
+            )
+            """);
+        jdbcTemplate.execute("CREATE SEQUENCE appointments_seq START WITH 1 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE payments (id bigserial PRIMARY KEY, mercado_pago_id varchar(255) NOT NULL)");
+
+        new DatabaseSchemaInitializer(jdbcTemplate).apply();
+    }
+
+    @BeforeEach
+    void clean() {
+        jdbcTemplate.update("DELETE FROM appointments");
+    }
+
+    @Test
+    void onlyOneOfManySimultaneousBookingsForTheSameSlotSucceeds() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 2, 10, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            long id = i + 1;
+            // Cada reserva pide un rango distinto pero superpuesto con el de las demás
+            LocalDateTime from = start.plusMinutes(i % 20);
+            attempts.add(executor.submit(() -> {
+                go.await();
+                try {
+                    insert(id, 7L, from, from.plusMinutes(30), "SCHEDULED");
+                    return true;
+                } catch (DataIntegrityViolationException e) {
+                    assertThat(e.getMostSpecificCause().getMessage())
+                            .contains(DatabaseSchemaInitializer.APPOINTMENT_OVERLAP_CONSTRAINT);
+                    return false;
+                }
+            }));
+        }
+        go.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(60, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM appointments", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledAppointmentsAndOtherProfessionalsDoNotBlockTheSlot() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 2, 10, 0);
+        insert(1L, 7L, start, start.plusMinutes(30), "CANCELLED");
+        insert(2L, 7L, start, start.plusMinutes(30), "SCHEDULED");
+        insert(3L, 8L, start, start.plusMinutes(30), "SCHEDULED");
+        // Rangos semiabiertos: uno que empieza justo cuando termina el anterior no choca
+        insert(4L, 7L, start.plusMinutes(30), start.plusMinutes(60), "SCHEDULED");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM appointments", Integer.class)).isEqualTo(4);
+    }
+
+    @Test
+    void sequenceIsMovedPastIdsInsertedBeforeTheSwitch() {
+        // Filas creadas con el id IDENTITY anterior, más allá de lo que la secuencia entregó
+        LocalDateTime start = LocalDateTime.of(2030, 3, 2, 10, 0);
+        insert(500L, 9L, start, start.plusMinutes(30), "SCHEDULED");
+
+        new DatabaseSchemaInitializer(jdbcTemplate).apply();
+
+        Long next = jdbcTemplate.queryForObject("SELECT nextval('appointments_seq')", Long.class);
+        assertThat(next).isGreaterThan(500L);
+    }
+
+    private static void insert(Long id, Long professionalId, LocalDateTime start, LocalDateTime end, String status) {
+        jdbcTemplate.update(
+                "INSERT INTO appointments (id, professional_id, start_time, end_time, status) VALUES (?, ?, ?, ?, ?)",
+                id, professionalId, Timestamp.valueOf(start), Timestamp.valueOf(end), status);
+    }
+}
@@ -0,0 +1,86 @@
+package com.barber.backend.config;
+
+import com.barber.backend.Microbenchmark;
+import com.barber.backend.model.Role;
+import com.barber.backend.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Costo del filtro de JWT por request con la clave, el parser y los claims verificados
+ * reusados, contra lo que hacía antes cada request: armar clave y parser y verificar la
+ * firma del token de nuevo.
+ */
+@Tag("benchmark")
+class JwtAuthenticationFilterBenchmarkTest {
+
+    private static final String SECRET = "una-clave-de-prueba-de-al-menos-32-bytes-de-largo";
+    private static final int ITERATIONS = 100_000;
+    // El camino sin cache es cientos de veces más lento: con menos vueltas alcanza
+    private static final int UNCACHED_ITERATIONS = 2_000;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedClaimsMakeTheFilterPathMuchCheaperThanVerifyingEveryRequest() throws Exception {
+        JwtUtil jwtUtil = jwtUtil();
+        String token = jwtUtil.generateToken(user());
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/appointments/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        double cached = Microbenchmark.nanosPerOp("JwtAuthenticationFilter con claims en cache", ITERATIONS, () -> {
+            SecurityContextHolder.clearContext();
+            filter.doFilter(request, response, chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        });
+
+        // Lo que hacía JwtUtil.getEmailFromToken en cada request
+        double uncached = Microbenchmark.nanosPerOp("Clave, parser y firma por request", UNCACHED_ITERATIONS, () ->
+                Jwts.parserBuilder()
+                        .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                        .build()
+                        .parseClaimsJws(token)
+                        .getBody()
+                        .getSubject());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        assertThat(cached).isLessThan(uncached / 3);
+    }
+
+    private static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ana@mail.com");
+        user.setRole(Role.CLIENT);
+        return user;
+    }
+}
@@ -0,0 +1,70 @@
+package com.barber.backend.config;
+
+import com.barber.backend.model.Role;
+import com.barber.backend.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "una-clave-de-prueba-de-al-menos-32-bytes-de-largo";
+
+    @Test
+    void verifiedClaimsAreServedFromTheCache() {
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        String token = jwtUtil.generateToken(user());
+
+        Claims first = jwtUtil.getClaims(token);
+
+        assertThat(jwtUtil.getClaims(token)).isSameAs(first);
+        AuthenticatedUser authenticated = jwtUtil.getAuthenticatedUser(token);
+        assertThat(authenticated.id()).isEqualTo(7L);
+        assertThat(authenticated.role()).isEqualTo(Role.CLIENT);
+    }
+
+    @Test
+    void cachedClaimsExpireTogetherWithTheToken() throws Exception {
+        // exp se guarda en segundos: el token vence entre 1 y 2 segundos después de emitirse
+        JwtUtil jwtUtil = jwtUtil(2_000);
+        String token = jwtUtil.generateToken(user());
+        assertThat(jwtUtil.getClaims(token)).isNotNull();
+
+        Thread.sleep(2_100);
+
+        assertThatThrownBy(() -> jwtUtil.getClaims(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void tokensWithAnInvalidSignatureAreRejectedAndNotCached() {
+        JwtUtil jwtUtil = jwtUtil(60_000);
+        String token = jwtUtil.generateToken(user());
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtUtil.getClaims(tampered)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> jwtUtil.getClaims(tampered)).isInstanceOf(SignatureException.class);
+    }
+
+    private static JwtUtil jwtUtil(long expirationMillis) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ana@mail.com");
+        user.setRole(Role.CLIENT);
+        return user;
+    }
+}
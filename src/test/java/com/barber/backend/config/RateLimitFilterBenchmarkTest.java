@@ -0,0 +1,71 @@
+package com.barber.backend.config;
+
+import com.barber.backend.Microbenchmark;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Costo del filtro por request, en una ruta limitada (búsqueda de la ruta, bucket en
+ * Caffeine y CAS) y en una ruta sin límite (solo la búsqueda). El objetivo es que quede
+ * muy por debajo de un microsegundo en los dos casos.
+ */
+@Tag("benchmark")
+class RateLimitFilterBenchmarkTest {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    private final FilterChain chain = (request, response) -> { };
+
+    @Test
+    void matchedAndUnmatchedRoutesCostWellUnderAMicrosecond() throws Exception {
+        RateLimitFilter filter = filter();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // La misma request se reusa: OncePerRequestFilter limpia su marca al terminar
+        MockHttpServletRequest matched = new MockHttpServletRequest("POST", "/appointments");
+        matched.setRemoteAddr("10.0.0.1");
+        MockHttpServletRequest unmatched = new MockHttpServletRequest("GET", "/barbershops");
+        unmatched.setRemoteAddr("10.0.0.1");
+
+        double matchedNanos = Microbenchmark.nanosPerOp("RateLimitFilter ruta limitada", ITERATIONS, () -> {
+            filter.doFilter(matched, response, chain);
+            return response;
+        });
+        double unmatchedNanos = Microbenchmark.nanosPerOp("RateLimitFilter ruta sin límite", ITERATIONS, () -> {
+            filter.doFilter(unmatched, response, chain);
+            return response;
+        });
+
+        // Ninguna request del benchmark pudo haber sido rechazada
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(matchedNanos).isLessThan(1_000);
+        assertThat(unmatchedNanos).isLessThan(1_000);
+    }
+
+    private static RateLimitFilter filter() {
+        // Capacidad tan alta que el benchmark nunca llega a vaciar el bucket
+        RateLimitProperties.Limit perIp = new RateLimitProperties.Limit();
+        perIp.setCapacity(1_000_000_000);
+        perIp.setPeriod(Duration.ofMinutes(1));
+
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setMethod("post");
+        route.setPath("/appointments");
+        route.setPerIp(perIp);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        return new RateLimitFilter(properties, mock(JwtUtil.class), new ObjectMapper(), new SimpleMeterRegistry());
+    }
+}
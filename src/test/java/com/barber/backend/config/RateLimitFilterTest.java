@@ -0,0 +1,110 @@
+package com.barber.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void admitsABurstOfCapacityAndThenRejectsWithRetryAfter() throws Exception {
+        RateLimitFilter filter = filter(limit(3, Duration.ofMinutes(1)), null);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = send(filter, "10.0.0.1", null);
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        // Cada lugar se libera cada 20s
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(19L, 20L);
+        assertThat(meterRegistry.get("http.rate-limit.rejected").tag("scope", "ip").counter().count())
+                .isEqualTo(1.0);
+
+        // Otra IP tiene su propio bucket
+        assertThat(send(filter, "10.0.0.2", null).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void refillsOneRequestPerIntervalWithoutRestoringTheWholeBurst() throws Exception {
+        // 2 requests cada 400ms: se libera un lugar cada 200ms
+        RateLimitFilter filter = filter(limit(2, Duration.ofMillis(400)), null);
+
+        assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(429);
+
+        Thread.sleep(250);
+        assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(200);
+        assertThat(send(filter, "10.0.0.1", null).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void limitsPerAccountByTheEmailInTheBodyAcrossIps() throws Exception {
+        RateLimitFilter filter = filter(null, limit(2, Duration.ofMinutes(1)));
+
+        assertThat(send(filter, "10.0.0.1", "Ana@Mail.com").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "10.0.0.2", "ana@mail.com ").getStatus()).isEqualTo(200);
+        assertThat(send(filter, "10.0.0.3", "ana@mail.com").getStatus()).isEqualTo(429);
+        assertThat(send(filter, "10.0.0.3", "otra@mail.com").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void theControllerCanStillReadTheBody() throws Exception {
+        RateLimitFilter filter = filter(null, limit(5, Duration.ofMinutes(1)));
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "ana@mail.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        byte[] body = chain.getRequest().getInputStream().readAllBytes();
+        assertThat(new String(body, StandardCharsets.UTF_8)).contains("ana@mail.com");
+    }
+
+    private RateLimitFilter filter(RateLimitProperties.Limit perIp, RateLimitProperties.Limit perAccount) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setMethod("post");
+        route.setPath("/auth/login");
+        route.setPerIp(perIp);
+        route.setPerAccount(perAccount);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(route));
+        return new RateLimitFilter(properties, mock(JwtUtil.class), new ObjectMapper(), meterRegistry);
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, Duration period) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPeriod(period);
+        return limit;
+    }
+
+    private static MockHttpServletResponse send(RateLimitFilter filter, String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, email), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(ip);
+        if (email != null) {
+            request.setContentType("application/json");
+            request.setContent(("{\"email\":\"" + email + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+        }
+        return request;
+    }
+}
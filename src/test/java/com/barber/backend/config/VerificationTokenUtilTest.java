@@ -0,0 +1,45 @@
+package com.barber.backend.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerificationTokenUtilTest {
+
+    private static final String SECRET = "una-clave-de-prueba-de-al-menos-32-bytes-de-largo";
+
+    private final VerificationTokenUtil tokenUtil = new VerificationTokenUtil(SECRET, 24);
+
+    @Test
+    void generatedTokensParseBackToTheirClaims() {
+        VerificationTokenUtil.VerificationClaims claims = tokenUtil.parse(tokenUtil.generateToken(7L, 3));
+
+        assertThat(claims.userId()).isEqualTo(7L);
+        assertThat(claims.nonce()).isEqualTo(3);
+        assertThat(claims.isExpired()).isFalse();
+    }
+
+    @Test
+    void aPayloadSignedWithTheRawJwtSecretIsRejected() throws Exception {
+        String payload = "7.3." + (System.currentTimeMillis() / 1000 + 3600);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(tokenUtil.parse(payload + "." + signature)).isNull();
+    }
+
+    @Test
+    void tamperedTokensAreRejected() {
+        String token = tokenUtil.generateToken(7L, 3);
+
+        assertThat(tokenUtil.parse("8" + token.substring(1))).isNull();
+        assertThat(tokenUtil.parse("sin-firma")).isNull();
+    }
+}
@@ -0,0 +1,142 @@
+package com.barber.backend.repository;
+
+import com.barber.backend.dto.AppointmentResponse;
+import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Professional;
+import com.barber.backend.model.ServiceEntity;
+import com.barber.backend.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los listados de turnos se arman con una sola consulta, sin importar cuántos turnos
+ * haya (antes eran 1 + 4N cargas lazy). Requiere Docker; sin él se saltea.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AppointmentResponseQueryTest {
+
+    private static final int APPOINTMENTS = 20;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Barbershop barbershop;
+    private User user;
+
+    @BeforeEach
+    void seed() {
+        barbershop = new Barbershop();
+        barbershop.setName("Barber");
+        barbershop.setAddress("Calle 123");
+        barbershop.setPhone("111");
+        barbershop.setSlug("barber");
+        entityManager.persist(barbershop);
+
+        user = new User();
+        user.setEmail("ana@mail.com");
+        user.setName("Ana");
+        user.setPassword("hash");
+        entityManager.persist(user);
+
+        LocalDateTime start = LocalDateTime.of(2030, 3, 2, 9, 0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            // Un profesional y un servicio por turno: el N+1 cargaría cada uno por separado
+            Professional professional = new Professional();
+            professional.setName("Profesional " + i);
+            professional.setBarbershop(barbershop);
+            entityManager.persist(professional);
+
+            ServiceEntity service = new ServiceEntity();
+            service.setName("Servicio " + i);
+            service.setPrice(1000.0 + i);
+            service.setDuration(30);
+            service.setBarbershop(barbershop);
+            entityManager.persist(service);
+
+            Appointment appointment = new Appointment();
+            appointment.setStartTime(start.plusMinutes(30L * i));
+            appointment.setEndTime(start.plusMinutes(30L * i + 30));
+            appointment.setUser(user);
+            appointment.setProfessional(professional);
+            appointment.setService(service);
+            appointment.setBarbershop(barbershop);
+            appointment.setNotes("nota " + i);
+            entityManager.persist(appointment);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void eachListingIsASingleStatement() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        List<AppointmentResponse> all = appointmentRepository.findAllResponses();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<AppointmentResponse> byBarbershop = appointmentRepository.findPageByBarbershopId(
+                barbershop.getId(), from, from.plusYears(1), List.of(AppointmentStatus.values()),
+                from, 0L, PageRequest.of(0, 100));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        List<AppointmentResponse> byUser = appointmentRepository.findResponsesByUserId(user.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        assertThat(all).hasSize(APPOINTMENTS);
+        assertThat(byBarbershop).hasSize(APPOINTMENTS);
+        assertThat(byUser).hasSize(APPOINTMENTS);
+
+        AppointmentResponse first = all.get(0);
+        assertThat(first.getClientName()).isEqualTo("Ana");
+        assertThat(first.getProfessionalName()).isEqualTo("Profesional 0");
+        assertThat(first.getServiceName()).isEqualTo("Servicio 0");
+        assertThat(first.getServicePrice()).isEqualTo(1000.0);
+        assertThat(first.getBarbershopName()).isEqualTo("Barber");
+        assertThat(first.getStatus()).isEqualTo("SCHEDULED");
+        assertThat(first.getNotes()).isEqualTo("nota 0");
+    }
+}
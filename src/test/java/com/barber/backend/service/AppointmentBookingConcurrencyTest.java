@@ -0,0 +1,196 @@
+package com.barber.backend.service;
+
+import com.barber.backend.config.DatabaseSchemaInitializer;
+import com.barber.backend.config.ResourceOwnershipCache;
+import com.barber.backend.dto.AppointmentRequest;
+import com.barber.backend.exception.AppointmentConflictException;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Professional;
+import com.barber.backend.model.ServiceEntity;
+import com.barber.backend.model.User;
+import com.barber.backend.repository.AppointmentRepository;
+import com.barber.backend.repository.BarbershopRepository;
+import com.barber.backend.repository.ProfessionalRepository;
+import com.barber.backend.repository.ServiceRepository;
+import com.barber.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reservas simultáneas del mismo horario a través de AppointmentService, cada una como si
+ * viniera de una instancia distinta (su propio índice en memoria, ya cargado y vacío):
+ * solo la restricción de la BD puede frenarlas. Tiene que pasar exactamente una y el resto
+ * terminar en AppointmentConflictException (HTTP 409). Requiere Docker; sin él se saltea.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DatabaseSchemaInitializer.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AppointmentBookingConcurrencyTest {
+
+    private static final int BOOKINGS = 40;
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProfessionalRepository professionalRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private BarbershopRepository barbershopRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Barbershop barbershop;
+    private Professional professional;
+    private ServiceEntity service;
+    private User user;
+
+    @BeforeEach
+    void seed() {
+        appointmentRepository.deleteAll();
+
+        barbershop = new Barbershop();
+        barbershop.setName("Barber");
+        barbershop.setAddress("Calle 123");
+        barbershop.setPhone("111");
+        barbershop.setSlug("barber-" + System.nanoTime());
+        barbershop = barbershopRepository.save(barbershop);
+
+        professional = new Professional();
+        professional.setName("Profesional");
+        professional.setBarbershop(barbershop);
+        professional = professionalRepository.save(professional);
+
+        service = new ServiceEntity();
+        service.setName("Corte");
+        service.setPrice(1000.0);
+        service.setDuration(30);
+        service.setBarbershop(barbershop);
+        service = serviceRepository.save(service);
+
+        user = new User();
+        user.setEmail("ana-" + System.nanoTime() + "@mail.com");
+        user.setName("Ana");
+        user.setPassword("hash");
+        user.setEmailVerified(true);
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void onlyOneOfManySimultaneousBookingsThroughTheServiceSucceeds() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKINGS);
+        CountDownLatch ready = new CountDownLatch(BOOKINGS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            // Horarios distintos pero superpuestos entre sí (10:00 a 10:20)
+            AppointmentRequest request = request(LocalTime.of(10, 0).plusMinutes(i % 5 * 5));
+            attempts.add(executor.submit(() -> {
+                AppointmentSlotIndex slotIndex = new AppointmentSlotIndex(appointmentRepository, 120);
+                AppointmentService appointmentService = instance(slotIndex);
+                // Cada instancia ya tiene el día cargado (vacío): el índice no ve a las demás
+                slotIndex.occupiedMinutes(barbershop.getId(), professional.getId(), DAY);
+                ready.countDown();
+                go.await();
+                try {
+                    transactionTemplate.executeWithoutResult(
+                            status -> appointmentService.createAppointment(request, user.getId()));
+                    return true;
+                } catch (AppointmentConflictException e) {
+                    return false;
+                }
+            }));
+        }
+        assertThat(ready.await(60, TimeUnit.SECONDS)).isTrue();
+        go.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(60, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(appointmentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void conflictIsAnsweredWith409() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ResponseStatusExceptionResolver().resolveException(new MockHttpServletRequest(), response, null,
+                new AppointmentConflictException("El profesional ya tiene un turno en ese horario"));
+
+        assertThat(response.getStatus()).isEqualTo(409);
+    }
+
+    private AppointmentService instance(AppointmentSlotIndex slotIndex) {
+        return new AppointmentService(appointmentRepository, userRepository, professionalRepository,
+                serviceRepository, barbershopRepository, slotIndex,
+                mock(ResourceOwnershipCache.class), mock(AppointmentReminderScheduler.class));
+    }
+
+    private AppointmentRequest request(LocalTime time) {
+        AppointmentRequest request = new AppointmentRequest();
+        request.setBarbershopId(barbershop.getId());
+        request.setProfessionalId(professional.getId());
+        request.setServiceId(service.getId());
+        request.setDate(DAY);
+        request.setTime(time);
+        return request;
+    }
+}
@@ -0,0 +1,55 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.AppointmentResponse;
+import com.barber.backend.repository.AppointmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentExportServiceTest {
+
+    private final AppointmentRepository repository = mock(AppointmentRepository.class);
+    private final AppointmentExportService exportService = new AppointmentExportService(repository, new ObjectMapper());
+
+    @Test
+    void valuesThatLookLikeFormulasAreNeutralised() throws Exception {
+        when(repository.streamByBarbershopId(1L)).thenReturn(Stream.of(
+                row("=HYPERLINK(\"http://x\",\"clic\")", "+54 11 5555", "-corte", "@sum(A1)")));
+
+        String[] fields = export().split("\n")[1].split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+
+        assertThat(fields[5]).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\",\"\"clic\"\")\"");
+        assertThat(fields[6]).isEqualTo("'+54 11 5555");
+        assertThat(fields[7]).isEqualTo("'-corte");
+        assertThat(fields[10]).isEqualTo("'@sum(A1)");
+    }
+
+    @Test
+    void plainValuesAreWrittenAsIs() throws Exception {
+        when(repository.streamByBarbershopId(1L)).thenReturn(Stream.of(
+                row("Ana", "Juan", "Corte, barba", null)));
+
+        assertThat(export().split("\n")[1])
+                .isEqualTo("7,2030-03-02,10:00,10:30,SCHEDULED,Ana,Juan,\"Corte, barba\",1000.0,30,");
+    }
+
+    private String export() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportCsv(1L, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static AppointmentResponse row(String client, String professional, String service, String notes) {
+        return new AppointmentResponse(7L, LocalDate.of(2030, 3, 2), LocalTime.of(10, 0), LocalTime.of(10, 30),
+                "SCHEDULED", client, professional, service, 1000.0, 30, "Barber", 1L, notes);
+    }
+}
@@ -0,0 +1,56 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.repository.AppointmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppointmentReminderSchedulerTest {
+
+    @Test
+    void firstLoadStartsAtTheOldestUnexpiredReminderAndLaterLoadsContinueFromTheWatermark() {
+        AppointmentRepository repository = mock(AppointmentRepository.class);
+        when(repository.findDayBeforeReminderCandidates(any(), any(), any())).thenReturn(List.of());
+        when(repository.findTwoHourReminderCandidates(any(), any(), any())).thenReturn(List.of());
+
+        AppointmentReminderScheduler scheduler = new AppointmentReminderScheduler(
+                repository, mock(EmailService.class), mock(TransactionTemplate.class),
+                new SimpleMeterRegistry(), 10000, 60, 1, 10);
+
+        LocalDateTime before = LocalDateTime.now();
+        scheduler.loadUpcoming();
+        scheduler.loadUpcoming();
+        scheduler.shutdown();
+
+        ArgumentCaptor<LocalDateTime> dayFrom = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> dayTo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(2)).findDayBeforeReminderCandidates(
+                eq(AppointmentStatus.SCHEDULED), dayFrom.capture(), dayTo.capture());
+        ArgumentCaptor<LocalDateTime> twoFrom = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository, times(2)).findTwoHourReminderCandidates(
+                eq(AppointmentStatus.SCHEDULED), twoFrom.capture(), any());
+
+        // Tras un corte largo, el de 24h de un turno que empieza en 3h todavía se carga
+        Duration dayBeforeLookBack = Duration.between(dayFrom.getAllValues().get(0), before.plusHours(24));
+        assertThat(dayBeforeLookBack).isGreaterThan(Duration.ofHours(21));
+        assertThat(dayFrom.getAllValues().get(0)).isBetween(before.plusHours(2), LocalDateTime.now().plusHours(2));
+        assertThat(twoFrom.getAllValues().get(0)).isBetween(before, LocalDateTime.now());
+
+        // La segunda carga sigue desde lo ya leído
+        assertThat(dayFrom.getAllValues().get(1)).isEqualTo(dayTo.getAllValues().get(0));
+    }
+}
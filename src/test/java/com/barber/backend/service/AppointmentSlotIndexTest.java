@@ -0,0 +1,143 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.AppointmentSlot;
+import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Professional;
+import com.barber.backend.repository.AppointmentRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentSlotIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 2);
+
+    private final AppointmentRepository repository = mock(AppointmentRepository.class);
+    private final AppointmentSlotIndex index = new AppointmentSlotIndex(repository, 120);
+
+    @Test
+    void rereadsTheDayBeforeReportingAnOverlap() {
+        Appointment cancelledElsewhere = appointment(1L, 10, 0, 30);
+        when(repository.findActiveSlotsInRange(anyLong(), anyLong(), any(), any()))
+                .thenReturn(List.of(slot(cancelledElsewhere)))
+                .thenReturn(List.of());
+
+        // Primera lectura: el día queda cargado con el turno ocupando 10:00-10:30
+        assertThat(index.occupiedMinutes(1L, 1L, DAY).get(10 * 60)).isTrue();
+
+        // Otra instancia lo canceló: el índice local lo marca ocupado, pero la BD no
+        assertThat(index.overlaps(1L, 1L, DAY.atTime(10, 0), DAY.atTime(10, 30))).isFalse();
+    }
+
+    @Test
+    void reportsAnOverlapConfirmedByTheDatabase() {
+        Appointment existing = appointment(1L, 10, 0, 30);
+        when(repository.findActiveSlotsInRange(anyLong(), anyLong(), any(), any()))
+                .thenReturn(List.of(slot(existing)));
+
+        assertThat(index.overlaps(1L, 1L, DAY.atTime(10, 15), DAY.atTime(10, 45))).isTrue();
+        assertThat(index.overlaps(1L, 1L, DAY.atTime(10, 30), DAY.atTime(11, 0))).isFalse();
+    }
+
+    @Test
+    void changeCommittedWhileTheDayIsLoadingIsNotLost() throws Exception {
+        Appointment appointment = appointment(1L, 10, 0, 30);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // La consulta ve el turno todavía activo y tarda en volver
+        when(repository.findActiveSlotsInRange(anyLong(), anyLong(), any(), any())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(slot(appointment));
+        });
+
+        Thread reader = new Thread(() -> index.occupiedMinutes(1L, 1L, DAY));
+        reader.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // La cancelación se confirma mientras la carga está en curso (sin transacción: se aplica ya)
+        appointment.setStatus(AppointmentStatus.CANCELLED);
+        Thread canceller = new Thread(() -> index.track(appointment));
+        canceller.start();
+        Thread.sleep(100);
+        release.countDown();
+
+        reader.join(5000);
+        canceller.join(5000);
+        assertThat(index.occupiedMinutes(1L, 1L, DAY).get(10 * 60)).isFalse();
+    }
+
+    @Test
+    void slowLoadDoesNotBlockOtherProfessionals() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // El profesional 1 tarda en cargar; el 2 responde enseguida
+        when(repository.findActiveSlotsInRange(eq(1L), anyLong(), any(), any())).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(repository.findActiveSlotsInRange(eq(2L), anyLong(), any(), any()))
+                .thenReturn(List.of(slot(appointment(2L, 9, 0, 30))));
+
+        Thread reader = new Thread(() -> index.occupiedMinutes(1L, 1L, DAY));
+        reader.start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThat(index.occupiedMinutes(1L, 2L, DAY).get(9 * 60)).isTrue();
+            assertThat(reader.isAlive()).isTrue();
+        } finally {
+            release.countDown();
+            reader.join(5000);
+        }
+    }
+
+    @Test
+    void failedLoadIsRetriedOnTheNextRead() {
+        when(repository.findActiveSlotsInRange(anyLong(), anyLong(), any(), any()))
+                .thenThrow(new IllegalStateException("BD caída"))
+                .thenReturn(List.of());
+
+        assertThatThrownBy(() -> index.occupiedMinutes(1L, 1L, DAY))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(index.occupiedMinutes(1L, 1L, DAY).isEmpty()).isTrue();
+    }
+
+    private static AppointmentSlot slot(Appointment appointment) {
+        return new AppointmentSlot(appointment.getId(), appointment.getStartTime(), appointment.getEndTime());
+    }
+
+    private static Appointment appointment(Long id, int hour, int minute, int duration) {
+        Barbershop barbershop = new Barbershop();
+        barbershop.setId(1L);
+        Professional professional = new Professional();
+        professional.setId(id);
+
+        LocalDateTime start = DAY.atTime(hour, minute);
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setBarbershop(barbershop);
+        appointment.setProfessional(professional);
+        appointment.setStartTime(start);
+        appointment.setEndTime(start.plusMinutes(duration));
+        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        return appointment;
+    }
+}
@@ -0,0 +1,71 @@
+package com.barber.backend.service;
+
+import com.barber.backend.config.JwtUtil;
+import com.barber.backend.config.VerificationTokenUtil;
+import com.barber.backend.dto.RegisterRequest;
+import com.barber.backend.model.User;
+import com.barber.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    @Test
+    void registerHashesThePasswordBeforeOpeningTheTransaction() {
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            return null;
+        }).when(transactionManager).commit(any());
+
+        AtomicBoolean hashedInsideTransaction = new AtomicBoolean();
+        PasswordHasher passwordHasher = mock(PasswordHasher.class);
+        when(passwordHasher.encode("secreto")).thenAnswer(invocation -> {
+            hashedInsideTransaction.set(inTransaction.get());
+            return "hash";
+        });
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.save(any())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+        VerificationTokenUtil tokenUtil = mock(VerificationTokenUtil.class);
+        when(tokenUtil.generateToken(anyLong(), anyInt())).thenReturn("token");
+        EmailService emailService = mock(EmailService.class);
+
+        AuthService authService = new AuthService(userRepository, passwordHasher, mock(JwtUtil.class),
+                emailService, tokenUtil, new TransactionTemplate(transactionManager));
+
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("ana@mail.com");
+        request.setName("Ana");
+        request.setPassword("secreto");
+        authService.register(request);
+
+        assertThat(hashedInsideTransaction.get()).isFalse();
+        verify(userRepository).save(any());
+        verify(emailService).sendVerificationEmail(anyString(), anyString(), anyString());
+        verify(transactionManager).commit(any());
+    }
+}
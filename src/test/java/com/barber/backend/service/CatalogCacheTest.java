@@ -0,0 +1,157 @@
+package com.barber.backend.service;
+
+import com.barber.backend.config.CacheConfig;
+import com.barber.backend.config.ResourceOwnershipCache;
+import com.barber.backend.dto.BarbershopConfigRequest;
+import com.barber.backend.dto.ServiceRequest;
+import com.barber.backend.exception.CatalogUpdateConflictException;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.ServiceEntity;
+import com.barber.backend.repository.BarbershopRepository;
+import com.barber.backend.repository.ProfessionalRepository;
+import com.barber.backend.repository.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(CatalogCacheTest.Config.class)
+@TestPropertySource(properties = {
+        "app.base-url=http://localhost:5173",
+        "app.cache.catalog-spec=maximumSize=100,expireAfterWrite=5m"
+})
+class CatalogCacheTest {
+
+    @Configuration
+    @Import(CacheConfig.class)
+    static class Config {
+
+        @Bean
+        BarbershopRepository barbershopRepository() {
+            return mock(BarbershopRepository.class);
+        }
+
+        @Bean
+        ServiceRepository serviceRepository() {
+            return mock(ServiceRepository.class);
+        }
+
+        @Bean
+        BarbershopService barbershopService(BarbershopRepository barbershopRepository) {
+            return new BarbershopService(barbershopRepository, mock(ProfessionalRepository.class));
+        }
+
+        @Bean
+        ServiceService serviceService(ServiceRepository serviceRepository, BarbershopRepository barbershopRepository) {
+            return new ServiceService(serviceRepository, barbershopRepository, mock(ResourceOwnershipCache.class));
+        }
+    }
+
+    @Autowired
+    private BarbershopService barbershopService;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private BarbershopRepository barbershopRepository;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Barbershop barbershop;
+    private ServiceEntity service;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        reset(barbershopRepository);
+        reset(serviceRepository);
+
+        barbershop = new Barbershop();
+        barbershop.setId(1L);
+        barbershop.setName("Barber");
+        barbershop.setSlug("barber");
+        service = new ServiceEntity();
+        service.setId(10L);
+        service.setName("Corte");
+        service.setActive(true);
+        service.setBarbershop(barbershop);
+
+        when(barbershopRepository.findAll()).thenReturn(List.of(barbershop));
+        when(barbershopRepository.findById(1L)).thenReturn(Optional.of(barbershop));
+        when(barbershopRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(serviceRepository.findByBarbershopIdAndActiveTrue(1L)).thenReturn(List.of(service));
+        when(serviceRepository.findById(10L)).thenReturn(Optional.of(service));
+        when(serviceRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void theBarbershopListIsCachedAndEvictedWhenABarbershopIsConfigured() {
+        barbershopService.getAllBarbershops();
+        barbershopService.getAllBarbershops();
+        verify(barbershopRepository, times(1)).findAll();
+
+        BarbershopConfigRequest request = new BarbershopConfigRequest();
+        request.setPaymentEnabled(true);
+        barbershopService.configureMercadoPago(1L, request);
+
+        barbershopService.getAllBarbershops();
+        verify(barbershopRepository, times(2)).findAll();
+    }
+
+    @Test
+    void servicesAreCachedPerBarbershopAndEvictedOnUpdate() {
+        serviceService.getServicesByBarbershop(1L);
+        serviceService.getServicesByBarbershop(1L);
+        verify(serviceRepository, times(1)).findByBarbershopIdAndActiveTrue(1L);
+
+        serviceService.updateService(10L, serviceRequest());
+
+        serviceService.getServicesByBarbershop(1L);
+        verify(serviceRepository, times(2)).findByBarbershopIdAndActiveTrue(1L);
+    }
+
+    @Test
+    void aConcurrentModificationIsReportedAsAConflictAndKeepsTheCache() {
+        serviceService.getServicesByBarbershop(1L);
+        when(serviceRepository.saveAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(ServiceEntity.class, 10L));
+
+        assertThatThrownBy(() -> serviceService.updateService(10L, serviceRequest()))
+                .isInstanceOf(CatalogUpdateConflictException.class);
+
+        serviceService.getServicesByBarbershop(1L);
+        verify(serviceRepository, times(1)).findByBarbershopIdAndActiveTrue(1L);
+    }
+
+    private static ServiceRequest serviceRequest() {
+        ServiceRequest request = new ServiceRequest();
+        request.setBarbershopId(1L);
+        request.setName("Corte y barba");
+        request.setPrice(5000.0);
+        request.setDuration(45);
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package com.barber.backend.service;
+
+import com.barber.backend.config.CacheConfig;
+import com.barber.backend.config.ResourceOwnershipCache;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Professional;
+import com.barber.backend.model.ServiceEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consultas a la BD de una carga de la página pública de una peluquería: la primera
+ * visita llena los caches del catálogo y las siguientes no consultan nada. Requiere
+ * Docker; sin él se saltea.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ CacheConfig.class, BarbershopService.class, ServiceService.class, ProfessionalService.class,
+        ResourceOwnershipCache.class })
+class CatalogQueryCountTest {
+
+    private static final String SLUG = "barber";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+    }
+
+    @Autowired
+    private BarbershopService barbershopService;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private ProfessionalService professionalService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long barbershopId;
+
+    @BeforeEach
+    void seed() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Barbershop barbershop = new Barbershop();
+        barbershop.setName("Barber");
+        barbershop.setAddress("Calle 123");
+        barbershop.setPhone("111");
+        barbershop.setSlug(SLUG);
+        entityManager.persist(barbershop);
+
+        for (int i = 0; i < 5; i++) {
+            ServiceEntity service = new ServiceEntity();
+            service.setName("Servicio " + i);
+            service.setPrice(1000.0 + i);
+            service.setDuration(30);
+            service.setBarbershop(barbershop);
+            entityManager.persist(service);
+
+            Professional professional = new Professional();
+            professional.setName("Profesional " + i);
+            professional.setBarbershop(barbershop);
+            entityManager.persist(professional);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        barbershopId = barbershop.getId();
+    }
+
+    @Test
+    void repeatedPageLoadsDoNotQueryTheDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        loadPage();
+        long firstLoad = statistics.getPrepareStatementCount();
+        assertThat(firstLoad).isPositive();
+
+        for (int i = 0; i < 10; i++) {
+            entityManager.clear();
+            statistics.clear();
+            loadPage();
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+        }
+    }
+
+    // Lo que pide el frontend al abrir la página de una peluquería y su formulario de reserva
+    private void loadPage() {
+        assertThat(barbershopService.getAllBarbershops()).hasSize(1);
+        assertThat(barbershopService.getBarbershopBySlug(SLUG).getName()).isEqualTo("Barber");
+        assertThat(barbershopService.getBookingContext(SLUG).getServices()).hasSize(5);
+        assertThat(serviceService.getServicesByBarbershop(barbershopId)).hasSize(5);
+        assertThat(professionalService.getProfessionalsByBarbershop(barbershopId)).hasSize(5);
+    }
+}
@@ -0,0 +1,197 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.EmailOutboxMessage;
+import com.barber.backend.model.EmailStatus;
+import com.barber.backend.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los envíos exitosos y los reintentos pasan por un servidor SMTP real en memoria
+ * (GreenMail); los casos que solo dependen de cómo se maneja un error usan un mock.
+ */
+class EmailDispatcherTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private EmailOutboxRepository repository;
+    private JavaMailSender mailSender;
+    private SimpleMeterRegistry meterRegistry;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EmailOutboxRepository.class);
+        mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = dispatcher(mailSender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void claimedMessagesAreLeasedAndMarkedSent() throws Exception {
+        dispatcher = dispatcher(smtpSender(greenMail.getSmtp().getPort()));
+        EmailOutboxMessage message = pending(1L, 0);
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.drain();
+
+        verify(repository).lockDueMessages(any(), anyInt());
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getSubject()).isEqualTo("Hola");
+        assertThat(received[0].getRecipients(Message.RecipientType.TO)[0].toString()).isEqualTo("ana@mail.com");
+        assertThat(received[0].getFrom()[0].toString()).isEqualTo("no-reply@barber.com");
+        assertThat(received[0].getContentType()).startsWith("text/html");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("<p>Hola</p>");
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getStatus()).isEqualTo(EmailStatus.SENT);
+        assertThat(message.getSentAt()).isAfterOrEqualTo(before);
+        // El claim dejó un lease de 5 minutos por si la instancia se caía a mitad del envío
+        assertThat(message.getNextAttemptAt()).isAfter(before.plusMinutes(4));
+        assertThat(meterRegistry.counter("email.outbox.sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void aFailedSendIsRetriedWithExponentialBackoff() throws Exception {
+        // Primero el servidor SMTP no responde (nadie escucha en el puerto)
+        JavaMailSenderImpl sender = smtpSender(closedPort());
+        dispatcher = dispatcher(sender);
+        EmailOutboxMessage message = pending(1L, 1);
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.drain();
+
+        // Segundo intento fallido: 30s * 2
+        assertThat(message.getAttempts()).isEqualTo(2);
+        assertThat(message.getStatus()).isEqualTo(EmailStatus.PENDING);
+        assertThat(message.getLastError()).contains("Mail server connection failed");
+        assertThat(message.getNextAttemptAt())
+                .isAfterOrEqualTo(before.plusSeconds(60))
+                .isBefore(before.plusSeconds(90));
+        assertThat(meterRegistry.counter("email.outbox.retries").count()).isEqualTo(1.0);
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+
+        // Vuelve el servidor: el reintento se entrega
+        sender.setPort(greenMail.getSmtp().getPort());
+        when(repository.lockDueMessages(any(), anyInt())).thenReturn(List.of(message)).thenReturn(List.of());
+
+        dispatcher.drain();
+
+        assertThat(message.getAttempts()).isEqualTo(3);
+        assertThat(message.getStatus()).isEqualTo(EmailStatus.SENT);
+        assertThat(message.getLastError()).isNull();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void theLastAllowedAttemptMarksTheMessageFailed() {
+        EmailOutboxMessage message = pending(1L, 2);
+        doThrow(new MailSendException("Destinatario inválido")).when(mailSender).send(any(MimeMessage.class));
+
+        dispatcher.drain();
+
+        assertThat(message.getAttempts()).isEqualTo(3);
+        assertThat(message.getStatus()).isEqualTo(EmailStatus.FAILED);
+        assertThat(meterRegistry.counter("email.outbox.failed").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("email.outbox.retries").count()).isZero();
+    }
+
+    @Test
+    void drainKeepsClaimingWhileBatchesAreFull() {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 2);
+        EmailOutboxMessage first = message(1L, 0);
+        EmailOutboxMessage second = message(2L, 0);
+        EmailOutboxMessage third = message(3L, 0);
+        when(repository.lockDueMessages(any(), anyInt()))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        for (EmailOutboxMessage message : List.of(first, second, third)) {
+            when(repository.findById(message.getId())).thenReturn(Optional.of(message));
+        }
+
+        dispatcher.drain();
+
+        verify(repository, times(2)).lockDueMessages(any(), anyInt());
+        verify(mailSender, times(3)).send(any(MimeMessage.class));
+    }
+
+    private EmailDispatcher dispatcher(JavaMailSender sender) {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        EmailDispatcher created = new EmailDispatcher(repository, sender,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry);
+        ReflectionTestUtils.setField(created, "fromEmail", "no-reply@barber.com");
+        ReflectionTestUtils.setField(created, "batchSize", 20);
+        ReflectionTestUtils.setField(created, "maxAttempts", 3);
+        return created;
+    }
+
+    private static JavaMailSenderImpl smtpSender(int port) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        return sender;
+    }
+
+    private static int closedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private EmailOutboxMessage pending(Long id, int attempts) {
+        EmailOutboxMessage message = message(id, attempts);
+        when(repository.lockDueMessages(any(), anyInt())).thenReturn(List.of(message)).thenReturn(List.of());
+        when(repository.findById(id)).thenReturn(Optional.of(message));
+        return message;
+    }
+
+    private static EmailOutboxMessage message(Long id, int attempts) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setId(id);
+        message.setRecipient("ana@mail.com");
+        message.setSubject("Hola");
+        message.setBody("<p>Hola</p>");
+        message.setAttempts(attempts);
+        return message;
+    }
+}
@@ -0,0 +1,61 @@
+package com.barber.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateTest {
+
+    @Test
+    void escapesHtmlInInsertedValuesButNotInTheTemplate() {
+        EmailTemplate template = EmailTemplate.compile(
+                "<p>Hola <b>{{userName}}</b>, <a href=\"{{url}}\">entrá</a></p>", "userName", "url");
+
+        String html = template.render(
+                "<script>alert('x')</script> & \"Co\"",
+                "https://app/verify?token=a&b=\"><img>");
+
+        assertThat(html).isEqualTo("<p>Hola <b>&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt; &amp; &quot;Co&quot;</b>, "
+                + "<a href=\"https://app/verify?token=a&amp;b=&quot;&gt;&lt;img&gt;\">entrá</a></p>");
+    }
+
+    @Test
+    void repeatedAndReorderedMarkersUseTheParameterByName() {
+        EmailTemplate template = EmailTemplate.compile("{{ b }}-{{a}}-{{b}}", "a", "b");
+
+        assertThat(template.render("1", "2")).isEqualTo("2-1-2");
+        // Un valor null se omite
+        assertThat(template.render(null, "2")).isEqualTo("2--2");
+    }
+
+    @Test
+    void unknownOrUnclosedMarkersFailAtCompileTime() {
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{nombre}}", "userName"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nombre");
+        assertThatThrownBy(() -> EmailTemplate.compile("Hola {{userName", "userName"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shippedTemplatesOnlyUseKnownMarkers() {
+        EmailTemplate verification = EmailTemplate.load(
+                "templates/email/verification.html", "userName", "verificationUrl");
+        EmailTemplate confirmation = EmailTemplate.load(
+                "templates/email/appointment-confirmation.html", "userName", "barbershopName", "date", "time");
+        EmailTemplate reminder = EmailTemplate.load(
+                "templates/email/appointment-reminder.html",
+                "userName", "when", "barbershopName", "professionalName", "serviceName", "date", "time");
+
+        assertThat(verification.render("<Ana>", "https://app/verify?token=t"))
+                .contains("&lt;Ana&gt;")
+                .doesNotContain("{{");
+        assertThat(confirmation.render("Ana", "Barber & Co", "01/02/2026", "10:00"))
+                .contains("Barber &amp; Co")
+                .doesNotContain("{{");
+        assertThat(reminder.render("Ana", "mañana", "Barber", "Juan", "Corte", "01/02/2026", "10:00"))
+                .contains("mañana")
+                .doesNotContain("{{");
+    }
+}
@@ -0,0 +1,152 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pagos de varias barberias en paralelo contra un servidor local que hace de Mercado Pago:
+ * cada respuesta tiene que corresponder al token de su barberia.
+ */
+class MercadoPagoClientRegistryTest {
+
+    private static final int SHOPS = 6;
+    private static final int CALLS_PER_SHOP = 8;
+
+    private HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private MercadoPagoClientRegistry registry;
+    private MercadoPagoGateway gateway;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // GET /v1/payments/{id}: devuelve el token recibido como external_reference
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(SHOPS * 2));
+        server.createContext("/v1/payments/", exchange -> {
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(50);
+                String path = exchange.getRequestURI().getPath();
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                String token = exchange.getRequestHeaders().getFirst("Authorization").substring("Bearer ".length());
+                byte[] body = ("{\"id\":" + id + ",\"status\":\"approved\",\"external_reference\":\""
+                        + token + "\",\"payment_type_id\":\"credit_card\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+
+        HttpHost stub = new HttpHost("127.0.0.1", server.getAddress().getPort(), "http");
+        registry = new MercadoPagoClientRegistry() {
+            @Override
+            protected HttpClientBuilder httpClientBuilder() {
+                // Todas las requests del SDK (https://api.mercadopago.com) van al servidor local
+                return HttpClients.custom().setRoutePlanner((target, request, context) -> new HttpRoute(stub));
+            }
+        };
+        ReflectionTestUtils.setField(registry, "maxConnectionsPerTenant", 20);
+        ReflectionTestUtils.setField(registry, "connectTimeoutMs", 2000);
+        ReflectionTestUtils.setField(registry, "readTimeoutMs", 5000);
+
+        PaymentGatewayGuard guard = new PaymentGatewayGuard(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(guard, "failureThreshold", 5);
+        ReflectionTestUtils.setField(guard, "openDurationMs", 30000L);
+        ReflectionTestUtils.setField(guard, "maxConcurrentPerTenant", CALLS_PER_SHOP);
+        ReflectionTestUtils.setField(guard, "maxWaitMs", 5000L);
+
+        gateway = new MercadoPagoGateway(registry, guard);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentPaymentsUseEachShopsOwnToken() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SHOPS * CALLS_PER_SHOP);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String[]>> results = new ArrayList<>();
+
+        for (long shop = 1; shop <= SHOPS; shop++) {
+            for (int call = 0; call < CALLS_PER_SHOP; call++) {
+                long barbershopId = shop;
+                long paymentId = shop * 1000 + call;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    String token = "TOKEN-" + barbershopId;
+                    GatewayPayment payment = gateway.getPayment(barbershopId, token, paymentId);
+                    return new String[] { token, payment.externalReference() };
+                }));
+            }
+        }
+        start.countDown();
+
+        for (Future<String[]> result : results) {
+            String[] pair = result.get(10, TimeUnit.SECONDS);
+            assertThat(pair[1]).isEqualTo(pair[0]);
+        }
+        executor.shutdown();
+
+        // Si las llamadas se serializaran nunca habría más de una a la vez en el servidor
+        assertThat(maxInFlight.get()).isGreaterThan(SHOPS);
+    }
+
+    @Test
+    void rotatingTheTokenDoesNotCloseTheClientUnderInFlightCalls() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLS_PER_SHOP);
+        List<Future<GatewayPayment>> results = new ArrayList<>();
+        for (int call = 0; call < CALLS_PER_SHOP; call++) {
+            long paymentId = call;
+            results.add(executor.submit(() -> gateway.getPayment(1L, "OLD", paymentId)));
+        }
+
+        // Mientras las llamadas con el token viejo esperan al servidor, la barberia cambia el token
+        Thread.sleep(20);
+        MercadoPagoClientRegistry.TenantClient old = registry.get(1L, "OLD");
+        assertThat(gateway.getPayment(1L, "NEW", 99L).externalReference()).isEqualTo("NEW");
+
+        for (Future<GatewayPayment> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS).externalReference()).isEqualTo("OLD");
+        }
+        executor.shutdown();
+
+        // El cliente retirado se cerró al terminar su última llamada
+        assertThat(old.isClosed()).isTrue();
+    }
+}
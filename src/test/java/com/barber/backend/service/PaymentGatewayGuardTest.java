@@ -0,0 +1,46 @@
+package com.barber.backend.service;
+
+import com.barber.backend.exception.PaymentGatewayUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentGatewayGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentGatewayGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new PaymentGatewayGuard(meterRegistry);
+        ReflectionTestUtils.setField(guard, "failureThreshold", 3);
+        ReflectionTestUtils.setField(guard, "openDurationMs", 60000L);
+        ReflectionTestUtils.setField(guard, "maxConcurrentPerTenant", 4);
+        ReflectionTestUtils.setField(guard, "maxWaitMs", 200L);
+        guard.registerMetrics();
+    }
+
+    @Test
+    void failuresOfOneShopOnlyOpenThatShopsCircuit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.call(1L, () -> {
+                throw new IOException("timeout");
+            })).isInstanceOf(IOException.class);
+        }
+
+        assertThat(guard.currentState(1L)).isEqualTo(PaymentGatewayGuard.State.OPEN);
+        assertThatThrownBy(() -> guard.call(1L, () -> "ok"))
+                .isInstanceOf(PaymentGatewayUnavailableException.class);
+
+        assertThat(guard.call(2L, () -> "ok")).isEqualTo("ok");
+        assertThat(guard.currentState(2L)).isEqualTo(PaymentGatewayGuard.State.CLOSED);
+        assertThat(meterRegistry.get("payments.gateway.circuit.open").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPayment;
+import com.barber.backend.dto.StalePayment;
+import com.barber.backend.model.PaymentStatus;
+import com.barber.backend.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentReconcilerTest {
+
+    @Test
+    void gatewayCallsPerShopStayBelowTheBulkhead() {
+        PaymentRepository repository = mock(PaymentRepository.class);
+        PaymentService paymentService = mock(PaymentService.class);
+        PaymentGateway gateway = mock(PaymentGateway.class);
+
+        // Un lote con 40 pagos de una misma barberia
+        List<StalePayment> batch = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            batch.add(new StalePayment(id, id, 1L, "TOKEN"));
+        }
+        when(repository.findStalePayments(any(), any(), any(), anyLong(), any())).thenReturn(batch);
+
+        Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(gateway.findLatestPayment(anyLong(), anyString(), anyString())).thenAnswer(invocation -> {
+            AtomicInteger current = inFlight.computeIfAbsent(invocation.getArgument(0), id -> new AtomicInteger());
+            maxInFlight.accumulateAndGet(current.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            current.decrementAndGet();
+            return Optional.of(new GatewayPayment(1L, "approved", invocation.getArgument(2), "credit_card"));
+        });
+
+        PaymentReconciler reconciler = new PaymentReconciler(repository, paymentService, gateway, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciler, "batchSize", 100);
+        ReflectionTestUtils.setField(reconciler, "parallelism", 8);
+        ReflectionTestUtils.setField(reconciler, "parallelismPerTenant", 8);
+        ReflectionTestUtils.setField(reconciler, "bulkheadPerTenant", 4);
+        ReflectionTestUtils.setField(reconciler, "staleAfterMinutes", 15L);
+        ReflectionTestUtils.setField(reconciler, "maxAgeDays", 30L);
+
+        reconciler.reconcile();
+        reconciler.shutdown();
+
+        // Un lugar del bulkhead (4) queda libre para los checkouts de la barberia
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(3);
+        verify(paymentService).applyReconciledPayments(any(), eq(List.of(
+                PaymentStatus.PENDING,
+                PaymentStatus.IN_PROCESS)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.barber.backend.service;
+
+import com.barber.backend.model.PaymentStatus;
+import com.barber.backend.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentReservationSweeperTest {
+
+    @Test
+    void reusedPaymentsAreRestoredAndOnlyNewReservationsAreDeleted() {
+        PaymentRepository repository = mock(PaymentRepository.class);
+        when(repository.restoreOrphanedReservations(eq(PaymentStatus.PENDING), any())).thenReturn(2);
+        when(repository.deleteOrphanedReservations(eq(PaymentStatus.PENDING), any())).thenReturn(3);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PaymentReservationSweeper sweeper = new PaymentReservationSweeper(repository, meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "reservationTimeoutMinutes", 10L);
+
+        sweeper.releaseOrphanedReservations();
+
+        // Los reutilizados se restauran; el DELETE solo alcanza a los pagos creados por la reserva
+        var order = inOrder(repository);
+        order.verify(repository).restoreOrphanedReservations(eq(PaymentStatus.PENDING), any());
+        order.verify(repository).deleteOrphanedReservations(eq(PaymentStatus.PENDING), any());
+        assertThat(meterRegistry.counter("payments.reservations.released").count()).isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.barber.backend.service;
+
+import com.barber.backend.dto.GatewayPreference;
+import com.barber.backend.model.Appointment;
+import com.barber.backend.model.AppointmentStatus;
+import com.barber.backend.model.Barbershop;
+import com.barber.backend.model.Payment;
+import com.barber.backend.model.PaymentStatus;
+import com.barber.backend.model.Professional;
+import com.barber.backend.model.ServiceEntity;
+import com.barber.backend.model.User;
+import com.barber.backend.repository.AppointmentRepository;
+import com.barber.backend.repository.BarbershopRepository;
+import com.barber.backend.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceCheckoutTest {
+
+    private PaymentRepository paymentRepository;
+    private PaymentGateway paymentGateway;
+    private PaymentService paymentService;
+    private Payment existing;
+
+    @BeforeEach
+    void setUp() {
+        paymentRepository = mock(PaymentRepository.class);
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        paymentGateway = mock(PaymentGateway.class);
+
+        paymentService = new PaymentService(paymentRepository, appointmentRepository, mock(EmailService.class),
+                mock(AppointmentSlotIndex.class), mock(AppointmentReminderScheduler.class),
+                mock(BarbershopRepository.class), paymentGateway,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(paymentService, "baseUrl", "http://localhost:5173");
+        ReflectionTestUtils.setField(paymentService, "webhookUrl", "http://localhost:8080/payments/webhook");
+
+        Appointment appointment = appointment();
+        existing = new Payment();
+        existing.setId(50L);
+        existing.setAppointment(appointment);
+        existing.setMercadoPagoId("pref-1");
+
+        when(appointmentRepository.findById(1L)).thenReturn(Optional.of(appointment));
+        when(paymentRepository.lockByAppointmentId(1L)).thenReturn(Optional.of(existing));
+        when(paymentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(paymentRepository.findById(50L)).thenReturn(Optional.of(existing));
+        when(paymentGateway.createPreference(anyLong(), anyString(), any()))
+                .thenReturn(new GatewayPreference("pref-2", "https://mp/checkout"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PaymentStatus.class, names = "REJECTED", mode = EnumSource.Mode.EXCLUDE)
+    void onlyARejectedPaymentCanBeRetried(PaymentStatus status) {
+        existing.setStatus(status);
+
+        assertThatThrownBy(() -> paymentService.createPaymentPreference(1L, 7L))
+                .isInstanceOf(RuntimeException.class);
+
+        // El pago existente queda intacto y no se crea otra preferencia
+        assertThat(existing.getStatus()).isEqualTo(status);
+        assertThat(existing.getMercadoPagoId()).isEqualTo("pref-1");
+        verify(paymentGateway, never()).createPreference(anyLong(), anyString(), any());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = PaymentStatus.class, names = "REJECTED")
+    void aRejectedPaymentIsReusedForTheNewCheckout(PaymentStatus status) {
+        existing.setStatus(status);
+
+        paymentService.createPaymentPreference(1L, 7L);
+
+        assertThat(existing.getStatus()).isEqualTo(PaymentStatus.PENDING);
+        assertThat(existing.getMercadoPagoId()).isEqualTo("pref-2");
+        assertThat(existing.getReservedFromStatus()).isNull();
+    }
+
+    private static Appointment appointment() {
+        Barbershop barbershop = new Barbershop();
+        barbershop.setId(3L);
+        barbershop.setName("Barber");
+        barbershop.setPaymentEnabled(true);
+        barbershop.setMercadoPagoAccessToken("TOKEN");
+
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("ana@mail.com");
+        user.setName("Ana");
+
+        Professional professional = new Professional();
+        professional.setName("Juan");
+
+        ServiceEntity service = new ServiceEntity();
+        service.setName("Corte");
+        service.setPrice(5000.0);
+
+        Appointment appointment = new Appointment();
+        appointment.setId(1L);
+        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        appointment.setStartTime(LocalDateTime.of(2030, 3, 2, 10, 0));
+        appointment.setUser(user);
+        appointment.setBarbershop(barbershop);
+        appointment.setProfessional(professional);
+        appointment.setService(service);
+        return appointment;
+    }
+}